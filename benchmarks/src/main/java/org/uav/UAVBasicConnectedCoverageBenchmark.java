@@ -0,0 +1,55 @@
+package org.uav;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uav.simulation.BenchmarkSimulations;
+import org.uav.simulation.Simulation;
+
+/**
+ * @author Julien Schleich
+ * Update of the number of hops to the base of every UAV, done by each 
+ * connected coverage UAV after its move. In the same package as the UAV
+ * to reach the protected method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UAVBasicConnectedCoverageBenchmark {
+
+    @Param({"10", "100"})
+    public int nbUAV;
+
+    protected Simulation simu;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+	simu = BenchmarkSimulations.run("UAVBasicConnectedCoverage", nbUAV, 100);
+    }
+
+    @Benchmark
+    public int updateNbHopToBase() {
+	int sum = 0;
+	for (int i=0; i<simu.getNbUAV(); i++){
+	    UAVBasicConnectedCoverage uav = (UAVBasicConnectedCoverage)simu.u[i];
+	    uav.updateNbHopToBase();
+	    sum += uav.getNbHopToBase();
+	}
+	return sum;
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.uav.aco;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uav.area.RectangularSimulationArea;
+import org.uav.simulation.BenchmarkSimulations;
+import org.uav.simulation.Simulation;
+import org.uav.status.Position;
+
+/**
+ * @author Julien Schleich
+ * Evaporation and reading of the centralized pheromone field. The 
+ * granularity sets the number of cells of the 2000x1000 area.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CentralizedACOBenchmark {
+
+    /** 20 gives 5000 cells, 5 gives 80000 cells */
+    @Param({"20", "5"})
+    public int granularity;
+
+    /** The number of positions read by one getPheromoneCount call */
+    protected static final int NB_POSITIONS = 1024;
+
+    protected Simulation simu;
+    protected CentralizedACO aco;
+    protected Position[] positions;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+	simu = BenchmarkSimulations.create("UAVBasicPheromoneMovement", 15, 200);
+	simu.setGranularity(granularity);
+	simu.runSimulation();
+	aco = (CentralizedACO)simu.getAco();
+
+	RectangularSimulationArea area = (RectangularSimulationArea)simu.getArea();
+	Random rand = new Random(1);
+	positions = new Position[NB_POSITIONS];
+	for (int i=0; i<NB_POSITIONS; i++)
+	    positions[i] = new Position(rand.nextDouble()*area.getMaxX(), 
+		    rand.nextDouble()*area.getMaxY());
+    }
+
+    @Benchmark
+    public void evaporation() {
+	aco.evaporation();
+    }
+
+    @Benchmark
+    public double getPheromoneCount() {
+	double sum = 0;
+	for (int i=0; i<NB_POSITIONS; i++)
+	    sum += aco.getPheromoneCount(positions[i]);
+	return sum;
+    }
+
+}
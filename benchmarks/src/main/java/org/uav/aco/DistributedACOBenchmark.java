@@ -0,0 +1,67 @@
+package org.uav.aco;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uav.area.RectangularSimulationArea;
+import org.uav.simulation.BenchmarkSimulations;
+import org.uav.simulation.Simulation;
+import org.uav.status.Position;
+
+/**
+ * @author Julien Schleich
+ * Evaporation and pheromone exchange of the distributed ACO, to be 
+ * compared with {@link CentralizedACOBenchmark}. The radius of the merge
+ * is in number of cells of the 2000x1000 area at granularity 5.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistributedACOBenchmark {
+
+    @Param({"15", "100"})
+    public int nbUAV;
+
+    @Param({"10", "40"})
+    public int radius;
+
+    protected Simulation simu;
+    protected DistributedACO aco;
+    protected Position center;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+	simu = BenchmarkSimulations.create("UAVDistributedPheromoneMovement", 
+		nbUAV, 200);
+	simu.setGranularity(5);
+	simu.runSimulation();
+	aco = (DistributedACO)simu.getAco();
+	RectangularSimulationArea area = (RectangularSimulationArea)simu.getArea();
+	center = new Position(area.getMaxX() / 2, area.getMaxY() / 2);
+    }
+
+    @Benchmark
+    public void evaporation() {
+	aco.evaporation();
+    }
+
+    @Benchmark
+    public void mergePheromones() {
+	aco.mergePheromones(0, 1, center, radius);
+    }
+
+}
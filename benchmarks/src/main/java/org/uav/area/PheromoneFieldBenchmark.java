@@ -0,0 +1,57 @@
+package org.uav.area;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Julien Schleich
+ * Evaporation of a pheromone field whose cells are all positive, as after
+ * a large scan. 2000 gives the grid of a 10000x10000 area at granularity 5.
+ * A threshold of 0 keeps the evaporation on the calling thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PheromoneFieldBenchmark {
+
+    @Param({"500", "2000"})
+    public int nbCellsPerSide;
+
+    @Param({"0", "65536"})
+    public int parallelismThreshold;
+
+    protected PheromoneField field;
+
+    @Setup(Level.Trial)
+    public void setup() {
+	field = new PheromoneField(nbCellsPerSide, nbCellsPerSide);
+	field.setParallelismThreshold(parallelismThreshold);
+    }
+
+    /** Every cell positive again, they stay so for the whole iteration */
+    @Setup(Level.Iteration)
+    public void fill() {
+	field.fill(1.0);
+    }
+
+    @Benchmark
+    public void evaporate() {
+	field.evaporate(1e-9);
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.uav.autopilot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uav.simulation.BenchmarkSimulations;
+import org.uav.simulation.Simulation;
+import org.uav.status.Position;
+
+/**
+ * @author Julien Schleich
+ * Prediction of the trajectory of a UAV, as done by the connected 
+ * coverage UAVs for each of their candidate headings
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrajectoryBenchmark {
+
+    /** The number of timesteps in the future */
+    @Param({"10", "30"})
+    public int nbSteps;
+
+    protected AbstractAutopilot auto;
+    protected Position destination;
+    protected KinematicState state;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+	Simulation simu = BenchmarkSimulations.run("UAVRandomMovement", 10, 50);
+	auto = simu.u[0].getAuto();
+	/** Behind the UAV, so that it has to turn */
+	destination = new Position(
+		auto.getCurrentStatus().getPositionX() - 300,
+		auto.getCurrentStatus().getPositionY() - 300);
+	state = new KinematicState();
+    }
+
+    @Benchmark
+    public Position[] getTrajectorySteps() {
+	return auto.getTrajectorySteps(destination, nbSteps);
+    }
+
+    @Benchmark
+    public double predictTrajectory() {
+	auto.predictTrajectory(destination.getX(), destination.getY(), 
+		nbSteps, state);
+	return state.getX();
+    }
+
+}
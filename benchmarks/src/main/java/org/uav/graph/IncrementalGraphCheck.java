@@ -0,0 +1,219 @@
+package org.uav.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.graphstream.algorithm.ConnectedComponents;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.DefaultGraph;
+import org.uav.AbstractUAV;
+import org.uav.simulation.BenchmarkSimulations;
+import org.uav.simulation.Simulation;
+
+/**
+ * @author Julien Schleich
+ * Checks the structures the {@link UAVGraph} repairs at each link change
+ * against a computation from scratch. Random sequences of link additions
+ * and removals, with some UAVs removed and added back, are applied to a
+ * graph of sparse to dense churn, and after every change the hops to the
+ * base of each UAV ({@link HopsToBase}) are compared to a full breadth
+ * first search, and the connected components 
+ * ({@link ConnectedComponentsTracker}) to those GraphStream computes on a
+ * copy of the graph. Run with:
+ * 	java -cp benchmarks/target/benchmarks.jar org.uav.graph.IncrementalGraphCheck [nbUAV] [nbChanges] [seed]
+ * The exit status is 1 if a difference is found.
+ */
+public final class IncrementalGraphCheck {
+
+    /** The probabilities of a link in the steady state of the churn */
+    private static final double[] DENSITIES = {0.02, 0.05, 0.1, 0.3};
+    /** One change out of this number removes a UAV and adds it back */
+    private static final int NODE_CHURN = 200;
+
+    /** The UAVs put in the graphs */
+    private AbstractUAV[] uavs;
+    /** The simulation owning them */
+    private Simulation simu;
+    /** The graph being checked */
+    private UAVGraph graph;
+    /** The same graph in GraphStream, with its connected components */
+    private DefaultGraph copy;
+    private ConnectedComponents components;
+    /** The reference hops, by node */
+    private int[] hops;
+    /** The queue of the reference search */
+    private int[] queue;
+
+    private IncrementalGraphCheck(Simulation simu) {
+	this.simu = simu;
+	this.uavs = simu.u;
+	this.hops = new int[uavs.length + 1];
+	this.queue = new int[uavs.length + 1];
+    }
+
+    /**
+     * Applies a random churn to a new graph, checking it after each change
+     * @param density the probability of a link in the steady state
+     * @param nbChanges the number of changes
+     * @param rand the random generator
+     * @return the description of the first difference, null if none
+     */
+    private String churn(double density, int nbChanges, Random rand) {
+	graph = new UAVGraph(simu);
+	copy = new DefaultGraph("copy");
+	copy.addNode(getName(UAVGraph.BASE));
+	for (AbstractUAV u : uavs){
+	    graph.addNode(u);
+	    copy.addNode(getName(u.getUavId()));
+	}
+	components = new ConnectedComponents();
+	components.init(copy);
+	components.setCountAttribute("component");
+	String error = compare();
+	for (int c = 0; (c < nbChanges) && (error == null); c++){
+	    if (rand.nextInt(NODE_CHURN) == 0){
+		int id = rand.nextInt(uavs.length);
+		graph.removeNode(id);
+		copy.removeNode(getName(id));
+		error = compare();
+		if (error != null)
+		    return "after removing UAV "+id+": "+error;
+		graph.addNode(uavs[id]);
+		copy.addNode(getName(id));
+		error = compare();
+		if (error != null)
+		    return "after adding UAV "+id+" back: "+error;
+		continue;
+	    }
+	    int id1 = rand.nextInt(uavs.length + 1) - 1;
+	    int id2 = rand.nextInt(uavs.length + 1) - 1;
+	    if (id1 == id2)
+		continue;
+	    boolean add = rand.nextDouble() < density;
+	    String link = getName(Math.min(id1, id2))+"_"+
+		    getName(Math.max(id1, id2));
+	    if (add){
+		graph.addEdge(id1, id2);
+		if (copy.getEdge(link) == null)
+		    copy.addEdge(link, getName(id1), getName(id2));
+	    }
+	    else {
+		graph.removeEdge(id1, id2);
+		if (copy.getEdge(link) != null)
+		    copy.removeEdge(link);
+	    }
+	    error = compare();
+	    if (error != null)
+		return "after "+(add ? "adding" : "removing")+" the link "+
+			id1+"-"+id2+" (change "+c+"): "+error;
+	}
+	return error;
+    }
+
+    /**
+     * @return the description of a difference between the repaired
+     * structures and a computation from scratch, null if none
+     */
+    private String compare() {
+	int nbReachable = search();
+	for (int id = UAVGraph.BASE; id < uavs.length; id++){
+	    int expected = hops[id + 1];
+	    int actual = (id == UAVGraph.BASE) ?
+		    graph.getHopsToBase().getNbHops(0) :
+			graph.getNbHopsToBase(id);
+	    if (actual != expected)
+		return "UAV "+id+" at "+actual+" hops instead of "+expected;
+	}
+	if (graph.getNbUAVConnectedToBase() != nbReachable - 1)
+	    return graph.getNbUAVConnectedToBase()+
+		    " UAVs connected to the base instead of "+
+		    (nbReachable - 1);
+
+	ConnectedComponentsTracker tracker = graph.getComponents();
+	components.compute();
+	if (tracker.getNbComponents() !=
+		components.getConnectedComponentsCount())
+	    return tracker.getNbComponents()+" components instead of "+
+		    components.getConnectedComponentsCount();
+	if (tracker.getGiantComponentSize() !=
+		components.getGiantComponent().size())
+	    return "a giant component of "+tracker.getGiantComponentSize()+
+		    " nodes instead of "+components.getGiantComponent().size();
+	if (tracker.getBaseComponentSize() != nbReachable)
+	    return "a base component of "+tracker.getBaseComponentSize()+
+		    " nodes instead of "+nbReachable;
+	/** Each node against the previous one in the graph */
+	int previous = UAVGraph.BASE;
+	for (int id = 0; id < uavs.length; id++){
+	    if (graph.getUAV(id) == null)
+		continue;
+	    boolean expected = getComponent(id) == getComponent(previous);
+	    if (tracker.areConnected(previous, id) != expected)
+		return "UAVs "+previous+" and "+id+
+			(expected ? " not" : "")+" connected";
+	    previous = id;
+	}
+	return null;
+    }
+
+    /**
+     * @param id the identifier of a UAV, UAVGraph.BASE for the base
+     * @return the name of its node in the copy
+     */
+    private static String getName(int id) {
+	return (id == UAVGraph.BASE) ? "base" : "uav"+id;
+    }
+
+    /**
+     * @param id the identifier of a UAV, UAVGraph.BASE for the base
+     * @return the component GraphStream gives to its node in the copy
+     */
+    private int getComponent(int id) {
+	Node node = copy.getNode(getName(id));
+	return ((Number)node.getAttribute("component")).intValue();
+    }
+
+    /**
+     * A full breadth first search from the base, through the public
+     * accessors of the graph only
+     * @return the number of nodes reached, the base included
+     */
+    private int search() {
+	Arrays.fill(hops, HopsToBase.UNREACHABLE);
+	hops[0] = 0;
+	queue[0] = UAVGraph.BASE;
+	int tail = 1;
+	for (int head = 0; head < tail; head++){
+	    int id = queue[head];
+	    for (int k = 0; k < graph.getDegree(id); k++){
+		int o = graph.getNeighbour(id, k);
+		if (hops[o + 1] == HopsToBase.UNREACHABLE){
+		    hops[o + 1] = hops[id + 1] + 1;
+		    queue[tail++] = o;
+		}
+	    }
+	}
+	return tail;
+    }
+
+    public static void main(String[] args) throws Exception {
+	int nbUAV = (args.length > 0) ? Integer.parseInt(args[0]) : 60;
+	int nbChanges = (args.length > 1) ? Integer.parseInt(args[1]) : 20000;
+	long seed = (args.length > 2) ? Long.parseLong(args[2]) : 1;
+
+	Simulation simu =
+		BenchmarkSimulations.run("UAVRandomMovement", nbUAV, 1);
+	IncrementalGraphCheck check = new IncrementalGraphCheck(simu);
+	Random rand = new Random(seed);
+	int nbFailures = 0;
+	for (double density : DENSITIES){
+	    String error = check.churn(density, nbChanges, rand);
+	    System.out.println("density "+density+": "+
+		    ((error == null) ? "ok" : error));
+	    if (error != null)
+		nbFailures++;
+	}
+	System.exit((nbFailures == 0) ? 0 : 1);
+    }
+
+}
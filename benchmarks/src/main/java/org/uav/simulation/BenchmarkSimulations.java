@@ -0,0 +1,59 @@
+package org.uav.simulation;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @author Julien Schleich
+ * Builds the simulations the benchmarks work on: headless simulations 
+ * already run for some timesteps, so that the UAVs are spread over the 
+ * area and the pheromone field is not empty.
+ */
+public final class BenchmarkSimulations {
+
+    private BenchmarkSimulations() {
+    }
+
+    /**
+     * Configures a headless simulation writing its statistics to a 
+     * temporary file
+     * @param uavType the type of UAVs
+     * @param nbUAV the number of UAVs
+     * @param nbSteps the number of timesteps to run
+     * @return the configured simulation, not run yet
+     * @throws IOException if the temporary file cannot be created
+     */
+    public static Simulation create(String uavType, int nbUAV, int nbSteps) 
+	    throws IOException {
+	Simulation simu = new Simulation();
+	simu.uavType = uavType;
+	simu.setNbUAV(nbUAV);
+	simu.setSeed(1);
+	simu.setMaxTimesteps(nbSteps);
+	simu.setWarmingSteps(0);
+	simu.setDisplay(false);
+	simu.setScreenshot(false);
+	File stats = File.createTempFile("uavnet-bench", "");
+	stats.deleteOnExit();
+	new File(stats.getPath()+".csv").deleteOnExit();
+	simu.statsFile = stats.getPath();
+	return simu;
+    }
+
+    /**
+     * Runs a headless simulation, its state stays available afterwards
+     * @param uavType the type of UAVs
+     * @param nbUAV the number of UAVs
+     * @param nbSteps the number of timesteps to run
+     * @return the simulation once run
+     * @throws IOException if the statistics cannot be written
+     * @throws InterruptedException if interrupted while running
+     */
+    public static Simulation run(String uavType, int nbUAV, int nbSteps) 
+	    throws IOException, InterruptedException {
+	Simulation simu = create(uavType, nbUAV, nbSteps);
+	simu.runSimulation();
+	return simu;
+    }
+
+}
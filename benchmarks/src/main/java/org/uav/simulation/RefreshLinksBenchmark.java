@@ -0,0 +1,50 @@
+package org.uav.simulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Julien Schleich
+ * Recomputation of the wireless links between the UAVs, done at every
+ * timestep. The UAVs move between two calls so that links are actually 
+ * added and removed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RefreshLinksBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nbUAV;
+
+    protected Simulation simu;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+	simu = BenchmarkSimulations.run("UAVRandomMovement", nbUAV, 50);
+    }
+
+    @Benchmark
+    public void moveAndRefreshLinks() {
+	for (int i=0; i<simu.getNbUAV(); i++)
+	    simu.u[i].getAuto().doNextMove();
+	simu.refreshNodesOnGraph();
+	simu.refreshLinksOnGraph();
+    }
+
+}
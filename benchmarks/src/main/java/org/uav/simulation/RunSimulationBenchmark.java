@@ -0,0 +1,54 @@
+package org.uav.simulation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Julien Schleich
+ * A whole headless simulation, from the initialization to the last 
+ * statistics line
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class RunSimulationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nbUAV;
+
+    @Param({"UAVBasicPheromoneMovement", "UAVDistributedPheromoneMovement", 
+	"UAVBasicConnectedCoverage"})
+    public String uavType;
+
+    @Param({"500"})
+    public int nbSteps;
+
+    protected Simulation simu;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+	simu = BenchmarkSimulations.create(uavType, nbUAV, nbSteps);
+    }
+
+    @Benchmark
+    public Simulation runSimulation() throws Exception {
+	simu.runSimulation();
+	return simu;
+    }
+
+}
@@ -3,6 +3,8 @@ package org.uav;
 import java.util.Random;
 
 import org.uav.autopilot.AbstractAutopilot;
+import org.uav.autopilot.Destination;
+import org.uav.simulation.SimulationContext;
 import org.uav.status.Position;
 
 abstract public class AbstractUAV {
@@ -22,9 +24,10 @@ abstract public class AbstractUAV {
 	protected int time;
 	
 	/**
-	 * A frequency to take local decisions every x time steps
+	 * The per-simulation parameters, e.g. the frequency to take local 
+	 * decisions every x time steps
 	 */
-	private static int decisionFrequency = 5;
+	protected SimulationContext context;
 
 	/**
 	 * The unique identifier of the UAV
@@ -51,6 +54,7 @@ abstract public class AbstractUAV {
 		this.time = 1;
 		this.uavId = id;
 		this.rand = new Random();
+		this.context = new SimulationContext();
 	}
 
 	////////////////////////////////////////////////////////////////////////
@@ -67,6 +71,36 @@ abstract public class AbstractUAV {
 		 */
 		localActionBeforeMove();
 		
+		doMoveStep();
+	}
+	
+	/**
+	 * First phase of a two-phase step: the UAV takes its local decisions.
+	 * The destination updates are kept aside until {@link #doMoveStep()}, 
+	 * so that the UAVs deciding in the same phase all see the destinations 
+	 * of the beginning of the step.
+	 */
+	public void doDecisionStep(){
+		Destination d = this.getAuto().getCurrentDestination();
+		d.setDeferred(true);
+		try {
+			localActionBeforeMove();
+		}
+		finally {
+			d.setDeferred(false);
+		}
+	}
+	
+	/**
+	 * Second phase of a two-phase step, also the end of 
+	 * {@link #doSimulationStep()}: 
+	 * 	- Applies the destination decided in the first phase
+	 * 	- Moves the UAV to its new position
+	 * 	- Allows the UAV to take its local decisions after moving
+	 */
+	public void doMoveStep(){
+		this.getAuto().getCurrentDestination().applyPendingUpdate();
+		
 		/**
 		 * Summons the autopilot to do the next move
 		 */
@@ -86,6 +120,16 @@ abstract public class AbstractUAV {
 		this.time++;
 	}
 	
+	/**
+	 * Tells if localActionBeforeMove() only modifies the UAV itself, 
+	 * reading the rest of the simulation. If so, the decisions of 
+	 * several UAVs can be taken concurrently.
+	 * @return true by default
+	 */
+	public boolean isDecisionIsolated(){
+		return true;
+	}
+	
 	/**
 	 * The action of the local decision after the movement
 	 */
@@ -160,15 +204,22 @@ abstract public class AbstractUAV {
 	/**
 	 * @return the decisionFrequency
 	 */
-	public static int getDecisionFrequency() {
-		return decisionFrequency;
+	public int getDecisionFrequency() {
+		return context.getDecisionFrequency();
+	}
+
+	/**
+	 * @return the context
+	 */
+	public SimulationContext getContext() {
+		return context;
 	}
 
 	/**
-	 * @param decisionFrequency the decisionFrequency to set
+	 * @param context the context to set
 	 */
-	public static void setDecisionFrequency(int decisionFrequency) {
-		AbstractUAV.decisionFrequency = decisionFrequency;
+	public void setContext(SimulationContext context) {
+		this.context = context;
 	}
 
 	/**
@@ -1,11 +1,10 @@
 package org.uav;
 
-import java.util.Iterator;
-import org.graphstream.graph.BreadthFirstIterator;
-import org.graphstream.graph.Edge;
-import org.graphstream.graph.Node;
-import org.graphstream.graph.implementations.DefaultGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import org.uav.autopilot.AbstractAutopilot;
+import org.uav.graph.Neighbourhood;
 import org.uav.graph.UAVGraph;
 
 /**
@@ -17,8 +16,8 @@ abstract public class AbstractUAVCentralisedNeighbourhood extends AbstractUAV {
 
     /** The complete UAV graph */
     protected UAVGraph uavGraph; 
-    /** The local graph */
-    protected DefaultGraph localGraph;
+    /** The scratch space of the neighbourhood queries */
+    protected Neighbourhood neighbourhood;
 
     /**
      * Constructor
@@ -28,68 +27,40 @@ abstract public class AbstractUAVCentralisedNeighbourhood extends AbstractUAV {
 	    UAVGraph uavGraph) {
 	super(auto, id);
 	this.uavGraph = uavGraph;
-	this.localGraph = new DefaultGraph("local"+this.getUavId());
+	this.neighbourhood = new Neighbourhood();
     }	
 
     /**
-     * Get the node representing the instance of UAV
-     * @return the node instance representing the UAV
+     * The UAVs within nbHop hops of the UAV, the UAV itself first, found 
+     * without visiting the rest of the graph. The result is overwritten by
+     * the next query.
+     * @param nbHop the maximum graph distance to the UAV
+     * @return the neighbourhood of the UAV
      */
-    protected Node getMyGraphNode(){
-	Node node = null;
-	for(Node n : uavGraph.getUavGraph().getEachNode()){
-	    if ((n.getId()).compareTo("uav"+this.getUavId()) == 0){
-		node = n;
-		break;
-	    }
-	}
-	if (node == null){
-	    System.out.println("We are uav "+this.getUavId());
-	    for(Node n : uavGraph.getUavGraph().getEachNode()){
-		System.out.println(n.getId());
-	    }
-	}
-	return node;
+    protected Neighbourhood getNeighbourhood(int nbHop){
+	return uavGraph.getNeighbourhood(this.getUavId(), nbHop, neighbourhood);
     }
 
     /**
-     * This method provides a sub-graph limited by a maximum distance 
-     * nbHop to the considered UAV 
-     *
-     * @param nbHop
-     * @return a subgraph 'centered' on the UAV and with up to its nbHop 
-     * neighbours.
+     * The other UAVs within nbHop hops of the UAV, in the order of their
+     * identifiers, so that what is computed from them does not depend on
+     * the order of a hash or of the links
+     * @param nbHop the maximum graph distance to the UAV
+     * @return the UAVs, neither the UAV itself nor the base station
      */
-    public DefaultGraph getLocalGraph(int nbHop){
-	DefaultGraph local = new DefaultGraph("local"+this.getUavId());
-	Node me = getMyGraphNode();
-
-	/** Adding Nodes */
-	local.addNode(me.getId());
-	BreadthFirstIterator<Node> bfi = new BreadthFirstIterator<Node>(me);
-	while (bfi.hasNext()){
-	    Node n = bfi.next();
-	    System.out.println(n.getId());
-	    if (n.getId() != "uav"+this.getUavId()) { /** If not me */
-		if (bfi.getDepthOf(n) <= nbHop){ /** If nb-hop neighbor */
-		    local.addNode(n.getId());
-		    /** Adding edges */
-		    Iterator<Edge> edges = n.getEachEdge().iterator();
-		    while (edges.hasNext()){
-			Edge curEdge = edges.next();
-			Node n1 = curEdge.getSourceNode();
-			Node n2 = curEdge.getTargetNode();
-			/** This test avoids edges between nbHop away nodes */
-			if ( 	((bfi.getDepthOf(n1) <= nbHop) && 
-				(bfi.getDepthOf(n2) < nbHop)) ||
-				((bfi.getDepthOf(n1) < nbHop) && 
-					(bfi.getDepthOf(n2) <= nbHop)) )
-			    local.addEdge(curEdge.getId(), n1, n2);
-		    }
-		}
-	    }
+    protected ArrayList<AbstractUAV> getNeighbourUAVs(int nbHop){
+	Neighbourhood neighbours = getNeighbourhood(nbHop);
+	int[] ids = new int[neighbours.size()];
+	int nbIds = 0;
+	for (int i = 1; i < neighbours.size(); i++){ /** If not me */
+	    if (neighbours.getId(i) != Neighbourhood.BASE)
+		ids[nbIds++] = neighbours.getId(i);
 	}
-	return local;
+	Arrays.sort(ids, 0, nbIds);
+	ArrayList<AbstractUAV> uavs = new ArrayList<AbstractUAV>(nbIds);
+	for (int i = 0; i < nbIds; i++)
+	    uavs.add(uavGraph.getUAV(ids[i]));
+	return uavs;
     }
 
 }
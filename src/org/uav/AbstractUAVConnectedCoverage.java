@@ -4,13 +4,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map.Entry;
 
-import org.graphstream.graph.BreadthFirstIterator;
-import org.graphstream.graph.Node;
 import org.uav.autopilot.AbstractAutopilot;
 import org.uav.autopilot.AutopilotFixedWingOutOfSimulationAreaStrategy;
+import org.uav.autopilot.KinematicState;
+import org.uav.autopilot.TrajectoryPredictionCache;
 import org.uav.graph.UAVGraph;
 import org.uav.status.Position;
-import org.uav.wireless.HomogeneousPropagationModel;
+import org.uav.wireless.AbstractPropagationModel;
 
 /**
  * @author Julien Schleich
@@ -37,6 +37,9 @@ extends AbstractUAVCentralisedNeighbourhood  {
     /** For each angle, we store the future position */
     protected HashMap< Double, Position > solutions;
 
+    /** The scratch state used to predict trajectories, reused at each call */
+    protected KinematicState predictionState;
+
     public AbstractUAVConnectedCoverage(AbstractAutopilot auto, 
 	    int id, 
 	    UAVGraph uavGraph, 
@@ -45,6 +48,7 @@ extends AbstractUAVCentralisedNeighbourhood  {
 	super(auto, id, uavGraph);
 	this.connectivity = new HashMap< Double, HashMap< Integer, Double > >();
 	this.solutions = new HashMap< Double, Position >();
+	this.predictionState = new KinematicState();
 	this.orientationGranularity = orientationGranularity;
 	this.nbTimestepsInTheFuture = nbTimestepsInTheFuture;
 
@@ -102,7 +106,8 @@ extends AbstractUAVCentralisedNeighbourhood  {
 	    //System.out.println(newHeading);
 	    /** We ask the autopilot to compute where we would be in nbSimulationSteps with this new heading */
 	    curDestination = auto.getPointWithAngleAndDistance(newHeading, distance);
-	    Position lastPointOnTrajectory = auto.getLastPointOnTrajectory(curDestination, nbTimestepsInTheFuture);
+	    auto.predictTrajectory(curDestination.getX(), curDestination.getY(), nbTimestepsInTheFuture, predictionState);
+	    Position lastPointOnTrajectory = new Position(predictionState.getX(), predictionState.getY());
 	    //System.out.println(lastPointOnTrajectory.getX()+" "+lastPointOnTrajectory.getY());
 	    this.solutions.put((double) angle, lastPointOnTrajectory);
 
@@ -114,8 +119,8 @@ extends AbstractUAVCentralisedNeighbourhood  {
 		Integer uavId = entry.getKey();
 		Position pos = entry.getValue();
 		/** If distance is too big for wireless reception, the value is Double.MAX_VALUE */
-		if (HomogeneousPropagationModel.areCloseEnoughToDecode(pos, lastPointOnTrajectory) ){
-		    distances.put(uavId, HomogeneousPropagationModel.getDistance(pos, lastPointOnTrajectory));
+		if (context.getPropa().areCloseEnoughToDecode(pos, lastPointOnTrajectory) ){
+		    distances.put(uavId, AbstractPropagationModel.getDistance(pos, lastPointOnTrajectory));
 		}
 	    }
 	    /** We only store valid solutions, i.e. there should at least be a future connected neighbor */
@@ -146,10 +151,9 @@ extends AbstractUAVCentralisedNeighbourhood  {
 
 	HashMap<Integer, Position> neighborsPositionInFuture = new HashMap<Integer, Position>();
 	for (AbstractUAV uav : neighbors){
+	    predictNeighborTrajectory(uav, nbSimulationSteps);
 	    neighborsPositionInFuture.put(uav.getUavId(), 
-		    uav.getAuto().getLastPointOnTrajectory(
-			    uav.getAuto().getCurrentDestination().getCurrentDestination(), 
-			    nbSimulationSteps));
+		    new Position(predictionState.getX(), predictionState.getY()));
 	}
 	return neighborsPositionInFuture;
     }
@@ -165,14 +169,33 @@ extends AbstractUAVCentralisedNeighbourhood  {
     protected HashMap<Integer, Position> getNeighborsPositionInFuture(HashSet<AbstractUAV> neighbors){
 	HashMap<Integer, Position> neighborsPositionInFuture = new HashMap<Integer, Position>();
 	for (AbstractUAV uav : neighbors){
+	    predictNeighborTrajectory(uav, this.nbTimestepsInTheFuture);
 	    neighborsPositionInFuture.put(uav.getUavId(), 
-		    uav.getAuto().getLastPointOnTrajectory(
-			    uav.getAuto().getCurrentDestination().getCurrentDestination(), 
-			    this.nbTimestepsInTheFuture));
+		    new Position(predictionState.getX(), predictionState.getY()));
 	}
 	return neighborsPositionInFuture;
     }
 
+    /**
+     * Predicts the last point of the trajectory of a neighbor going to its
+     * current destination, through the prediction cache shared by the 
+     * UAVs of the simulation if there is one. The result is stored in
+     * predictionState.
+     * @param uav the neighbor
+     * @param nbSimulationSteps the number of simulation steps in the future
+     */
+    protected void predictNeighborTrajectory(AbstractUAV uav, int nbSimulationSteps){
+	TrajectoryPredictionCache cache = context.getPredictionCache();
+	if (cache != null)
+	    cache.predictTrajectory(uav.getUavId(), uav.getAuto(), 
+		    nbSimulationSteps, predictionState);
+	else {
+	    Position dest = uav.getAuto().getCurrentDestination().getCurrentDestination();
+	    uav.getAuto().predictTrajectory(dest.getX(), dest.getY(), 
+		    nbSimulationSteps, predictionState);
+	}
+    }
+
     /***********************************************************
      * 
      * Solution comparison related methods
@@ -8,11 +8,11 @@ import java.util.HashSet;
 
 import java.util.Map.Entry;
 
-import org.graphstream.graph.BreadthFirstIterator;
-import org.graphstream.graph.Node;
 import org.uav.aco.AbstractACO;
 
 import org.uav.autopilot.AbstractAutopilot;
+import org.uav.graph.HopsToBase;
+import org.uav.graph.Neighbourhood;
 import org.uav.graph.UAVGraph;
 import org.uav.status.Position;
 
@@ -26,8 +26,8 @@ public class UAVBasicConnectedCoverage extends AbstractUAVConnectedCoverage {
 
     /** The current number of hop to the base station */
     protected int nbHopToBase;
-    /** The base station */
-    protected Node base;
+    /** The position of the base station */
+    protected Position base;
     /** The Ant Colony Optimisation module */
     protected AbstractACO aco;
 
@@ -36,11 +36,12 @@ public class UAVBasicConnectedCoverage extends AbstractUAVConnectedCoverage {
      * @param auto the autopilot
      * @param id the identifier of the UAV
      * @param uavGraph the instance of graph containing the UAVs
+     * @param base the position of the base station
      */
     public UAVBasicConnectedCoverage(	AbstractAutopilot auto, 
 	    int id, 
 	    UAVGraph uavGraph, 
-	    Node base,
+	    Position base,
 	    AbstractACO aco,
 	    int orientationGranularity,
 	    int nbStepsInFuture) {
@@ -66,33 +67,16 @@ public class UAVBasicConnectedCoverage extends AbstractUAVConnectedCoverage {
     }
 
     /**
-     *  A method to update the current nbHopToBase variable
+     *  A method to update the current nbHopToBase variable, read from the
+     *  number of hops to the base kept by the UAV graph. A UAV linked to
+     *  the base has no hop to it.
      */
     protected void updateNbHopToBase(){
-	Node me = getMyGraphNode();
-	BreadthFirstIterator<Node> bfi = new BreadthFirstIterator<Node>(me);
-	int smallestNbHop = Integer.MAX_VALUE;
-	while (bfi.hasNext()){
-	    Node n = bfi.next();
-	    if (n.getId() != "uav"+this.getUavId()) { /** If not me */
-		if (bfi.getDepthOf(n) <= 1){ /** If one-hop neighbor */
-		    if (n.getId() == "base"){
-			smallestNbHop = 0;
-			break;
-		    }
-		    UAVBasicConnectedCoverage u = 
-			    (UAVBasicConnectedCoverage)n.getAttribute("uavinstance");
-		    if (smallerThan(u, this)){
-			if (u.nbHopToBase < smallestNbHop)
-			    smallestNbHop = u.nbHopToBase;
-		    }
-		}
-	    }
-	}
-	if (smallestNbHop == Integer.MAX_VALUE)
+	int nbHop = uavGraph.getNbHopsToBase(this.getUavId());
+	if (nbHop == HopsToBase.UNREACHABLE)
 	    this.nbHopToBase = Integer.MAX_VALUE;
 	else
-	    this.nbHopToBase = smallestNbHop + 1;
+	    this.nbHopToBase = nbHop - 1;
     }
 
     /**
@@ -102,22 +86,13 @@ public class UAVBasicConnectedCoverage extends AbstractUAVConnectedCoverage {
      */	
     protected HashSet<AbstractUAV> getLowerNeighbors(){
 	HashSet<AbstractUAV> uavSet = new HashSet<AbstractUAV>();
-	Node me = getMyGraphNode();
-	BreadthFirstIterator<Node> bfi = new BreadthFirstIterator<Node>(me);
-	int smallestNbHop = Integer.MAX_VALUE;
-	while (bfi.hasNext()){
-	    Node n = bfi.next();
-	    { /** If not me */
-		if ( (n.getId() != "uav"+this.getUavId()) && (n.getId() != "base"))
-		    if (bfi.getDepthOf(n) <= 1){ /** If one-hop neighbor */
-			UAVBasicConnectedCoverage u = 
-				(UAVBasicConnectedCoverage)n.getAttribute("uavinstance");
-			if (smallerThan(u, this)){
-			    uavSet.add(u);
-			    if (u.nbHopToBase < smallestNbHop)
-				smallestNbHop = u.nbHopToBase;
-			}
-		    }
+	Neighbourhood neighbours = getNeighbourhood(1);
+	for (int i = 1; i < neighbours.size(); i++){ /** If not me */
+	    if (neighbours.getId(i) != Neighbourhood.BASE){
+		UAVBasicConnectedCoverage u = (UAVBasicConnectedCoverage)
+			uavGraph.getUAV(neighbours.getId(i));
+		if (smallerThan(u, this))
+		    uavSet.add(u);
 	    }
 	}
 	return uavSet;	
@@ -139,8 +114,7 @@ public class UAVBasicConnectedCoverage extends AbstractUAVConnectedCoverage {
      */
     protected Position bestFuturePositionNoConnectedPosition(){
 	/** Find the current best spot around base */
-	Position p = new Position((Double)base.getAttribute("x"), 
-		(Double)base.getAttribute("y"));
+	Position p = new Position(base.getX(), base.getY());
 	return p;
     }
 
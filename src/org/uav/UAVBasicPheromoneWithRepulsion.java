@@ -3,10 +3,7 @@ package org.uav;
 import java.util.ArrayList;
 
 import java.util.Collections;
-import java.util.HashSet;
 
-import org.graphstream.graph.BreadthFirstIterator;
-import org.graphstream.graph.Node;
 
 import org.uav.aco.AbstractACO;
 
@@ -56,7 +53,7 @@ extends AbstractUAVCentralisedNeighbourhood{
 	/**
 	 *  Compute the position deltas for each one-hop neighbor
 	 */
-	HashSet<AbstractUAV> neighbors = getNeighbors(1);
+	ArrayList<AbstractUAV> neighbors = getNeighbors(1);
 	ArrayList<Position> delta = new ArrayList<Position>();
 	for(AbstractUAV curNeighbor : neighbors){
 	    if (curNeighbor.uavId != uavId){
@@ -211,26 +208,14 @@ extends AbstractUAVCentralisedNeighbourhood{
     }
 
     /**
-     * A hashset containing the considered neighbours of a UAV, filtered 
-     * by a maximum distance nbhop
+     * The considered neighbours of a UAV, filtered by a maximum distance 
+     * nbhop, in the order of their identifiers so that the repulsion 
+     * forces are always summed in the same order
      * @param nhop the maximum graph distance to the UAV
-     * @return the hashset of considerd neighbours
+     * @return the list of considerd neighbours
      */
-    protected HashSet<AbstractUAV> getNeighbors(int nhop){
-	HashSet<AbstractUAV> uavSet = new HashSet<AbstractUAV>();
-	Node me = getMyGraphNode();
-	BreadthFirstIterator<Node> bfi = new BreadthFirstIterator<Node>(me);
-	while (bfi.hasNext()){
-	    Node n = bfi.next();
-	    if ( (n.getId() != "uav"+this.getUavId()) && (n.getId() != "base")){ /** If not me */
-		if (bfi.getDepthOf(n) <= nhop){ /** If n-hop neighbor */
-		    UAVBasicPheromoneWithRepulsion u = 
-			    (UAVBasicPheromoneWithRepulsion)n.getAttribute("uavinstance");
-		    uavSet.add(u);
-		}
-	    }
-	}
-	return uavSet;	
+    protected ArrayList<AbstractUAV> getNeighbors(int nhop){
+	return getNeighbourUAVs(nhop);
     }
 
     /**
@@ -3,38 +3,42 @@ package org.uav;
 import java.util.ArrayList;
 import java.util.Collections;
 
-import java.util.Iterator;
-
-
-import org.graphstream.graph.Node;
 import org.uav.aco.AbstractACO;
 import org.uav.aco.DistributedACO;
 import org.uav.autopilot.AbstractAutopilot;
 import org.uav.autopilot.AutopilotFixedWingOutOfSimulationAreaStrategy;
+import org.uav.graph.Neighbourhood;
+import org.uav.graph.UAVGraph;
 import org.uav.status.Position;
 
 /**
- * Under work
  * @author Julien Schleich
- *
+ * A pheromone choice for the movement of UAVs with a {@link DistributedACO}:
+ * each UAV drops pheromone on its own layer and periodically merges it
+ * into the layers of its one-hop neighbours around its position. A UAV
+ * chooses its moves from its own layer only, so it knows of the scans of
+ * the others through these exchanges only.
  */
 public class UAVDistributedPheromoneMovement 
-extends AbstractUAVNeighborhood {
+extends AbstractUAVCentralisedNeighbourhood {
 
     protected AbstractACO aco;
 
     /** For exchanging pheromones informations */
     protected int exchangeFrequency;
     protected int exchangeCounter;
+    /** The radius of the exchanged area, in number of grid cells */
     protected int informationRadius; 
 
     /**
      * Constructor
      * @param auto
      * @param id
+     * @param uavGraph
      * @param aco
      */
-    public UAVDistributedPheromoneMovement(AbstractAutopilot auto, int id, AbstractACO aco) {
+    public UAVDistributedPheromoneMovement(AbstractAutopilot auto, int id, 
+	    UAVGraph uavGraph, AbstractACO aco) {
 	super(auto, id, uavGraph);
 	this.aco = aco;
     }
@@ -43,12 +47,14 @@ extends AbstractUAVNeighborhood {
      * Constructor
      * @param auto
      * @param id
+     * @param uavGraph
      * @param aco
      * @param exchangeFrequency
      * @param informationRadius
      */
     public UAVDistributedPheromoneMovement(AbstractAutopilot auto, int id,
-	    AbstractACO aco, int exchangeFrequency, int informationRadius) {
+	    UAVGraph uavGraph, AbstractACO aco, int exchangeFrequency, 
+	    int informationRadius) {
 	super(auto, id, uavGraph);
 	this.aco = aco;
 	this.exchangeFrequency = exchangeFrequency;
@@ -62,30 +68,36 @@ extends AbstractUAVNeighborhood {
     }
 
 
+    /**
+     * The broadcast modifies the layers of the neighbours, so the decisions
+     * of several UAVs cannot be taken concurrently
+     * @return false
+     */
+    @Override
+    public boolean isDecisionIsolated(){
+	return false;
+    }
+
     /** 
      * In the future this should be managed by the org.uav.wireless package
      * */
     protected void broadcastInformation(){
 	DistributedACO distrACO = (DistributedACO)this.aco;
-	String phNameFrom = "ph"+Integer.toString(this.uavId);
-
-	Iterator<Node> itNeighbors = this.getLocalGraph(1).getNodeIterator();
-	while (itNeighbors.hasNext()){
-	    Node curNeighbor = itNeighbors.next();
-
-	    String phNameTo = "ph"+curNeighbor.getId();
-	    System.out.println(phNameTo);
-	    distrACO.mergePheromones(	phNameFrom, 
-		    phNameTo, 
-		    this.auto.getCurrentStatus().getCurrentPosition(), 
-		    informationRadius);
+	Position p = this.auto.getCurrentStatus().getCurrentPosition();
+
+	for (int k = 0; k < uavGraph.getDegree(this.uavId); k++){
+	    /** The base station has no pheromone layer */
+	    int neighborId = uavGraph.getNeighbour(this.uavId, k);
+	    if (neighborId != Neighbourhood.BASE)
+		distrACO.mergePheromones(this.uavId, neighborId, 
+			p, informationRadius);
 	}
     }
 
     @Override
     protected void localActionBeforeMove() {
 	exchangeCounter ++;
-	if (getTime() == exchangeFrequency){
+	if (exchangeCounter == exchangeFrequency){
 	    broadcastInformation();
 	    exchangeCounter = 0;
 	}
@@ -96,17 +108,18 @@ extends AbstractUAVNeighborhood {
     }
 
     /**
-     * A simplistic pheromone choice 
+     * A simplistic pheromone choice, from the layer of the UAV
      */
     public void newPheromoneChoice(){
 	AutopilotFixedWingOutOfSimulationAreaStrategy auto = (AutopilotFixedWingOutOfSimulationAreaStrategy) (this.getAuto());
+	DistributedACO distrACO = (DistributedACO)this.aco;
 	Position left = auto.getLeftPoint();
 	Position right = auto.getRightPoint();
 	Position front = auto.getFrontPoint();
 
-	double phLeft = aco.getPheromoneCount(left);
-	double phRight = aco.getPheromoneCount(right);
-	double phFront = aco.getPheromoneCount(front);
+	double phLeft = distrACO.getPheromoneCount(left, this.uavId);
+	double phRight = distrACO.getPheromoneCount(right, this.uavId);
+	double phFront = distrACO.getPheromoneCount(front, this.uavId);
 
 	int retValue = smallerPheromone(phLeft, phRight, phFront);
 	switch (retValue) {
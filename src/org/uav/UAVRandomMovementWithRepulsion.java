@@ -1,10 +1,7 @@
 package org.uav;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 
-import org.graphstream.graph.BreadthFirstIterator;
-import org.graphstream.graph.Node;
 
 import org.uav.aco.AbstractACO;
 
@@ -48,7 +45,7 @@ extends AbstractUAVCentralisedNeighbourhood{
 	/**
 	 *  Compute the position deltas for each one-hop neighbor
 	 */
-	HashSet<AbstractUAV> neighbors = getNeighbors(1);
+	ArrayList<AbstractUAV> neighbors = getNeighbors(1);
 	ArrayList<Position> delta = new ArrayList<Position>();
 	for(AbstractUAV curNeighbor : neighbors){
 	    if (curNeighbor.uavId != uavId){
@@ -102,32 +99,14 @@ extends AbstractUAVCentralisedNeighbourhood{
     }
 
     /**
-     * A hashset containing the considered neighbours of a UAV, filtered 
-     * by a maximum distance nbhop
+     * The considered neighbours of a UAV, filtered by a maximum distance 
+     * nbhop, in the order of their identifiers so that the repulsion 
+     * forces are always summed in the same order
      * @param nhop the maximum graph distance to the UAV
-     * @return the hashset of considerd neighbours
+     * @return the list of considerd neighbours
      */
-    protected HashSet<AbstractUAV> getNeighbors(int nhop){
-	HashSet<AbstractUAV> uavSet = new HashSet<AbstractUAV>();
-	Node me = getMyGraphNode();
-	BreadthFirstIterator<Node> bfi = new BreadthFirstIterator<Node>(me);
-	try {
-	    while (bfi.hasNext()){
-		Node n = bfi.next();
-		 /** If not me */
-		if ( (n.getId() != "uav"+this.getUavId()) && (n.getId() != "base")){
-		    if (bfi.getDepthOf(n) <= nhop){ /** If n-hop neighbor */
-			UAVRandomMovementWithRepulsion u = 
-				(UAVRandomMovementWithRepulsion)n.getAttribute("uavinstance");
-			uavSet.add(u);
-		    }
-		}
-	    }
-
-	}
-	catch (Exception e){
-	}
-	return uavSet;	
+    protected ArrayList<AbstractUAV> getNeighbors(int nhop){
+	return getNeighbourUAVs(nhop);
     }
 
     /**
@@ -8,8 +8,11 @@ import java.util.HashSet;
 
 import org.uav.AbstractUAV;
 import org.uav.area.AbstractSimulationArea;
+import org.uav.area.CoverageCounters;
 import org.uav.area.RectangularSimulationArea;
+import org.uav.area.ScanLog;
 import org.uav.simulation.Simulation;
+import org.uav.simulation.SimulationContext;
 import org.uav.status.Position;
 
 /**
@@ -20,6 +23,9 @@ abstract public class AbstractACO {
     /** The simulation instance */
     protected Simulation simu;
 
+    /** The per-simulation parameters */
+    protected SimulationContext context;
+
     /** How frequently (in time step) pheromone quantity vanish */
     protected double evaporationFreq;
 
@@ -43,6 +49,7 @@ abstract public class AbstractACO {
 
     public AbstractACO(Simulation simu) {
 	this.simu = simu;
+	this.context = simu.getContext();
 	this.evaporationFreq = simu.getEvaporationFreq();
 	this.evaporationSpeed = simu.getEvaporationSpeed();
 	this.area = (RectangularSimulationArea)simu.getArea();
@@ -103,6 +110,32 @@ abstract public class AbstractACO {
 	    String phName, 
 	    Integer uavId);
 
+    /**
+     * Records in the scan history of the area that a UAV flew over a cell.
+     * A scan is counted unless the same UAV was already over the cell at
+     * the previous timestep.
+     * @param cell the index of the cell
+     * @param uavId the identifier of the UAV
+     */
+    protected void recordScan(int cell, int uavId){
+	ScanLog log = area.getScanLog();
+	if (simu.isUseLastUAVId() && (log != null)){
+	    if (simu.isUseScanTimes()){
+		if ((log.getLastUAV(cell) != uavId) || 
+			((simu.getBigCpt() - log.getLastScanTime(cell)) > 1 )){
+		    CoverageCounters counters = 
+			    area.getPheromoneField().getCounters();
+		    if (counters != null)
+			counters.cellScanned(log.getNbScans(cell));
+		    log.addScan(cell, simu.getBigCpt());
+		    log.setLastUAV(cell, uavId);
+		}
+	    }
+	    else
+		log.setLastUAV(cell, uavId);
+	}
+    }
+
     /**
      * The method causes pheromone quantity to drop depending on
      * the value of evaporationRate
@@ -1,11 +1,8 @@
 package org.uav.aco;
 
-import java.util.ArrayList;
-
-import org.graphstream.graph.Node;
-
 import org.uav.AbstractUAV;
 
+import org.uav.area.PheromoneField;
 import org.uav.area.RectangularSimulationArea;
 import org.uav.area.AbstractSimulationArea;
 import org.uav.autopilot.AutopilotFixedWingOutOfSimulationAreaStrategy;
@@ -16,15 +13,11 @@ import org.uav.status.Position;
 /**
  * @author Julien Schleich
  * A centralized implementation of a simplistic ACO
+ * The pheromone levels are stored in the {@link PheromoneField} of the
+ * simulation area and the scans in its {@link ScanLog}.
  */
 public class CentralizedACO extends AbstractACO {
 
-    /** The maximum pheromone count */
-    static protected double maxPheromoneValue = 1;
-
-    /** The maximum pheromone count */
-    static protected double minPheromoneValue = Double.MIN_VALUE;
-
     public CentralizedACO(Simulation simu) {
 	super(simu);
     }
@@ -58,59 +51,24 @@ public class CentralizedACO extends AbstractACO {
      * @param area the {@link AbstractSimulationArea}
      */
     private void dropPheromoneOnCell(int x, int y, String phName, Integer uavId){
-	Node n = area.getG().getNode(x+"-"+y);
-	if (n != null){
+	PheromoneField field = area.getPheromoneField();
+	if (field.isInField(x, y)){
 	    /** Updating pheromone count */
-	    Double phValue = 1.0;
-	    n.setAttribute(phName, phValue);
-
-	    /** Updating scan time list */
-	    if (simu.isUseLastUAVId()){
-		Integer lastUAV = (Integer)n.getAttribute("lastUAV");
-		if (simu.isUseScanTimes()){
-		    ArrayList<Integer> scanTime = 
-			    (ArrayList<Integer>)n.getAttribute("scanTime");
-		    Integer lastScan = -1;
-		    if (!scanTime.isEmpty()){
-			lastScan = scanTime.get(scanTime.size()-1);
-		    }
-		    if ((lastUAV != uavId) || ((simu.getBigCpt() - lastScan) > 1 )){
-			scanTime.add(simu.getBigCpt());
-			n.setAttribute("scanTime", scanTime);
-			n.setAttribute("lastUAV", uavId);
-		    }
-		}
-		else
-		    n.setAttribute("lastUAV", uavId);
-	    }
+	    field.set(x, y, getMaxPheromoneValue());
+
+	    /** Updating scan history */
+	    recordScan(field.getIndex(x, y), uavId);
 	}
     }
 
     /**
      * In this implementation, the pheromone on each cell
-     * is reduced homogeneously
+     * is reduced homogeneously. Only the cells with a positive pheromone
+     * are visited, the age of the others is computed when read.
      */
     @Override
     public void evaporation() {
-	double stepX = ( area.getMaxX()-area.getMinX() ) / area.getGranularity();
-	double stepY = ( area.getMaxY()-area.getMinY() ) / area.getGranularity();
-
-	for (int i=0; i<stepX; i++){
-	    for (int j=0; j<stepY; j++){
-		Node n = area.getG().getNode(i+"-"+j);
-		if (n.hasAttribute("pheromone")){
-		    Double phValue = n.getAttribute("pheromone");
-		    if (phValue > 0.0){
-			phValue -= this.getEvaporationSpeed();
-			if (phValue < 0.0)
-			    phValue = 0.0;	
-		    }
-		    else
-			phValue -= 1;
-		    n.setAttribute("pheromone", phValue);
-		}
-	    }
-	}
+	area.getPheromoneField().evaporate(this.getEvaporationSpeed());
     }
 
     /**
@@ -128,8 +86,7 @@ public class CentralizedACO extends AbstractACO {
 	int cell_y = y/area.getGranularity();
 
 	if (!area.isOutOfArea(x, y)){
-	    Node n = area.getG().getNode(cell_x+"-"+cell_y);
-	    Double ph = n.getAttribute("pheromone");
+	    double ph = area.getPheromoneField().get(cell_x, cell_y);
 	    /** Never visited */
 	    if (ph == Integer.MIN_VALUE)
 		phCount += -1000.0;
@@ -176,31 +133,17 @@ public class CentralizedACO extends AbstractACO {
      ********************************************/
 
     /**
-     * @return the maxPheromoneValue
-     */
-    public static double getMaxPheromoneValue() {
-	return maxPheromoneValue;
-    }
-
-    /**
-     * @return the minPheromoneValue
-     */
-    public static double getMinPheromoneValue() {
-	return minPheromoneValue;
-    }
-
-    /**
-     * @param maxPheromoneValue the maxPheromoneValue to set
+     * @return the maxPheromoneValue of the simulation context
      */
-    public static void setMaxPheromoneValue(double maxPheromoneValue) {
-	CentralizedACO.maxPheromoneValue = maxPheromoneValue;
+    public double getMaxPheromoneValue() {
+	return context.getMaxPheromoneValue();
     }
 
     /**
-     * @param minPheromoneValue the minPheromoneValue to set
+     * @return the minPheromoneValue of the simulation context
      */
-    public static void setMinPheromoneValue(double minPheromoneValue) {
-	CentralizedACO.minPheromoneValue = minPheromoneValue;
+    public double getMinPheromoneValue() {
+	return context.getMinPheromoneValue();
     }
 
     @Override
@@ -3,24 +3,40 @@
  */
 package org.uav.aco;
 
-import java.util.HashSet;
-import java.util.Iterator;
-
-import org.graphstream.graph.BreadthFirstIterator;
-import org.graphstream.graph.Node;
-import org.uav.AbstractUAV;
-import org.uav.area.AbstractSimulationArea;
-import org.uav.area.RectangularSimulationArea;
+import org.uav.area.CellSet;
+import org.uav.area.DiskStencil;
+import org.uav.area.PheromoneField;
+import org.uav.area.PheromoneLayers;
 import org.uav.simulation.Simulation;
 import org.uav.status.Position;
 
 /**
  * @author Julien Schleich
  * A distributed implementation of a simplistic ACO
+ * Each UAV has its own pheromone layer, indexed by its id, in a
+ * {@link PheromoneLayers}: it drops its pheromone there, receives there
+ * the pheromones merged by its neighbours, and scores its moves from it
+ * only ({@link #getPheromoneCount(Position, int)}). The pheromone field
+ * of the area holds the maximum over the layers of each cell, i.e. the
+ * global knowledge, which is used for the display and the metrics.
+ * The evaporation only visits the cells with a positive pheromone, the
+ * layers being evaporated when next read.
  * UNDER WORK
  */
 public class DistributedACO extends AbstractACO {
 
+    /** The pheromone layer of each UAV */
+    protected PheromoneLayers layers;
+
+    /**
+     * The cells visited by the next evaporation: the cells with a positive
+     * pheromone or whose pheromone changed since the last evaporation
+     */
+    protected CellSet visitedCells;
+
+    /** The disk of cells of the last merge radius */
+    protected DiskStencil stencil;
+
     /**
      * @param evaporationFreq
      * @param evaporationRate
@@ -28,34 +44,30 @@ public class DistributedACO extends AbstractACO {
      */
     public DistributedACO(Simulation simu) {
 	super(simu);
+	int nbCells = area.getPheromoneField().getNbCells();
+	this.layers = new PheromoneLayers(simu.getNbUAV(), nbCells, 
+		(float)getEvaporationSpeed());
+	this.visitedCells = new CellSet(nbCells);
+	/** The first evaporation visits every cell */
+	this.visitedCells.addAll();
     }
 
     public void updateGeneralPheromoneInfoOnACell(int x, int y){
-	Node n = area.getG().getNode(x+"-"+y);
-	if (n != null){
-	    Iterator<String> it = allPheromones.iterator();
-	    double maxPhValue = -1;
-	    while (it.hasNext()){
-		String current = it.next();
-		Double phValue = n.getAttribute(current);
-		if (phValue != null){
-		    if (phValue > maxPhValue){
-			maxPhValue = phValue;
-		    }
-		}
-	    }
-	    n.setAttribute("pheromone", maxPhValue);
+	PheromoneField field = area.getPheromoneField();
+	if (field.isInField(x, y)){
+	    int cell = field.getIndex(x, y);
+	    field.set(cell, layers.getMax(cell));
+	    visitedCells.add(cell);
 	}
     }
 
     @Override
     public void dropPheromone(Position previousPos, Position currentPos,
 	    String phName, Integer uavId) {
-	RectangularSimulationArea recArea = (RectangularSimulationArea) area;
-	int int_x = (int)(currentPos.getX() / recArea.getGranularity());
-	int int_y = (int)(currentPos.getY() / recArea.getGranularity());
+	int int_x = (int)(currentPos.getX() / area.getGranularity());
+	int int_y = (int)(currentPos.getY() / area.getGranularity());
 
-	dropPheromoneOnCell(int_x, int_y, "ph"+uavId);
+	dropPheromoneOnCell(int_x, int_y, uavId);
     }
 
     /**
@@ -64,123 +76,101 @@ public class DistributedACO extends AbstractACO {
      * just scanned this area.
      * @param x the x axis value of the cell
      * @param y the y axis value of the cell
-     * @param area the {@link AbstractSimulationArea}
+     * @param uavId the id of the UAV, which is its layer
      */
-    private void dropPheromoneOnCell(int x, int y, String phName){
-	Node n = area.getG().getNode(x+"-"+y);
-	if (n != null){
-	    if (n.hasAttribute(phName)){
-		double phValue = n.getAttribute(phName);
-		phValue = 1;
-		if (phValue > 1){
-		    phValue = 1;
-		}
-		n.setAttribute(phName, phValue);
-	    }
-	    else {
-		n.setAttribute(phName, 1.0);
-	    }
-
+    private void dropPheromoneOnCell(int x, int y, int uavId){
+	PheromoneField field = area.getPheromoneField();
+	if (field.isInField(x, y)){
+	    layers.set(uavId, field.getIndex(x, y), 1.0f);
+	    /** Updating scan history */
+	    recordScan(field.getIndex(x, y), uavId);
 	}
 	updateGeneralPheromoneInfoOnACell(x, y);
     }
 
     /**
      * In this implementation, the pheromones on each cell
-     * are reduced homogeneously
+     * are reduced homogeneously. Only the cells with a positive pheromone
+     * or changed since the last evaporation are visited, and only their
+     * maximum over the layers is evaporated.
      */
     @Override
     public void evaporation() {
-	double stepX = (area.getMaxX()-area.getMinX())/area.getGranularity();
-	double stepY = (area.getMaxY()-area.getMinY())/area.getGranularity();
-
-	for (int i=0; i<stepX; i++){
-	    for (int j=0; j<stepY; j++){
-		Node n = area.getG().getNode(i+"-"+j);
-		Iterator<String> it = allPheromones.iterator();
-		double maxPhOnCell = 0;
-		while (it.hasNext()){
-		    String current = it.next();
-
-		    if (n.hasAttribute(current)){
-			double phValue = n.getAttribute(current);
-			if (phValue > 0.0){
-			    phValue -= this.getEvaporationSpeed();
-			    if (phValue < 0.0){
-				phValue = 0.0;
-			    }
-			    if (maxPhOnCell < phValue){
-				maxPhOnCell = phValue;
-			    }
-			}
-			else {
-			    phValue -= 1;
-			}
-			n.setAttribute(current, phValue);
-		    }
-		}
-		n.setAttribute("pheromone", maxPhOnCell);
+	PheromoneField field = area.getPheromoneField();
+	layers.evaporation();
+	for (int k = visitedCells.size() - 1; k >= 0; k--){
+	    int cell = visitedCells.get(k);
+	    float phValue = layers.getMax(cell);
+	    double maxPhOnCell = 0;
+	    if (phValue > 0.0f){
+		maxPhOnCell = phValue;
 	    }
+	    field.set(cell, maxPhOnCell);
+	    if (!(maxPhOnCell > 0.0))
+		visitedCells.remove(cell);
 	}
     }
 
     /**
-     * 
-     * @param n
-     * @param phNameFrom
-     * @param phNameTo
+     * Merges the layer of a UAV into the one of another UAV on a cell
+     * @param cell the index of the cell
+     * @param fromUavId the id of the UAV whose layer is read
+     * @param toUavId the id of the UAV whose layer is raised
      */
-    public void mergeOneCell(Node n, String phNameFrom, String phNameTo){
+    public void mergeOneCell(int cell, int fromUavId, int toUavId){
 	/** Simple maximum value */
-	double from = (Double)n.getAttribute(phNameFrom);
-	double to = (Double)n.getAttribute(phNameTo);
-	if (from > to){
-	    n.setAttribute(phNameTo, (Double)n.getAttribute(phNameFrom));
-	}
+	layers.merge(fromUavId, toUavId, cell);
     }
 
     /**
-     * 
-     * @param p
-     * @param i
-     * @param j
-     * @param radius
-     * @return
+     * Tests if a cell is within a radius of a center cell and in the area
+     * @param p the center cell, in number of cells
+     * @param i the x-axis coordinate of the cell in the grid
+     * @param j the y-axis coordinate of the cell in the grid
+     * @param radius in number of cells
+     * @return true if the cell is in the area and within the radius
      */
     public boolean checkDistanceOfCells(Position p, int i, int j, int radius){
 	boolean res = false;
 	Position pCell = new Position(i*this.area.getGranularity(), 
 		j*this.area.getGranularity());
 	if (!this.area.isOutOfArea(pCell)){
-	    if ((p.getX() * p.getX()) + (p.getY()*p.getY())< radius * radius)
+	    double dx = i - (int)p.getX();
+	    double dy = j - (int)p.getY();
+	    if ((dx * dx) + (dy * dy) < radius * radius)
 		res = true;
 	}
 	return res;
     }
 
     /**
-     * 
-     * @param phNameFrom
-     * @param phNameTo
+     * Merges the layer of a UAV into the one of another UAV on the cells
+     * within a radius of a position. The disk of cells is computed once
+     * per radius and clipped to the grid row by row.
+     * @param fromUavId the id of the UAV whose layer is read
+     * @param toUavId the id of the UAV whose layer is raised
      * @param p actual center of the UAV
      * @param radius in number of cells
      */
-    public void mergePheromones(String phNameFrom, 
-	    String phNameTo, 
+    public void mergePheromones(int fromUavId, 
+	    int toUavId, 
 	    Position p, 
 	    int radius){
-	int rSquare = radius * radius;
-	Position pInArea = new Position(p.getX()/this.area.getGranularity(), 
-		p.getY()/this.area.getGranularity());
-	for (int i = (int)pInArea.getX() - radius; 
-		i < (int)pInArea.getX() + radius; i++){
-	    for (int j = (int)pInArea.getY() - radius; 
-		    j < (int)pInArea.getY() + radius; i++){
-		if (checkDistanceOfCells(pInArea, i, j, radius)){
-		    Node n = this.simu.getG().getNode(i+"-"+j);
-		    mergeOneCell(n, phNameFrom, phNameTo);
-		}
-	    }
+	if ((stencil == null) || (stencil.getRadius() != radius))
+	    stencil = new DiskStencil(radius);
+	PheromoneField field = area.getPheromoneField();
+	int centerX = (int)(p.getX() / this.area.getGranularity());
+	int centerY = (int)(p.getY() / this.area.getGranularity());
+	for (int dx = -stencil.getRadius(); dx <= stencil.getRadius(); dx++){
+	    int x = centerX + dx;
+	    int h = stencil.getHalfWidth(dx);
+	    if ((x < 0) || (x >= field.getStepX()) || (h < 0))
+		continue;
+	    int minY = Math.max(0, centerY - h);
+	    int maxY = Math.min(field.getStepY() - 1, centerY + h);
+	    if (minY <= maxY)
+		layers.merge(fromUavId, toUavId, 
+			field.getIndex(x, minY), field.getIndex(x, maxY));
 	}
     }
 
@@ -199,8 +189,7 @@ public class DistributedACO extends AbstractACO {
 	int cell_y = y/area.getGranularity();
 
 	if (!area.isOutOfArea(x, y)){
-	    Node n = area.getG().getNode(cell_x+"-"+cell_y);
-	    Double ph = n.getAttribute("pheromone");
+	    double ph = area.getPheromoneField().get(cell_x, cell_y);
 	    /** Never visited */
 	    if (ph == Integer.MIN_VALUE)
 		phCount += -1000.0;
@@ -240,17 +229,67 @@ public class DistributedACO extends AbstractACO {
 	return phCount;
     }
 
-    @Override
-    public void initPheromones() {
-	for (int i = 0; i < simu.getNbUAV(); i++){
-	    int id = simu.u[i].getUavId();
-	    HashSet<String> tmp = this.allPheromonesPerUAV.get(i);
-	    tmp.add("ph"+id);
-	    allPheromonesPerUAV.put(id, tmp);
-	    allPheromones.add("ph"+id);
-	}
+    /**
+     * Get the pheromone of one cell as known by a UAV, from its layer. The
+     * value is either:
+     * 	- +1000 if the cell is out of the simulation area
+     * 	- Minus the number of evaporations done if the UAV knows of no scan
+     * 	  of the cell, as if it was scanned at the start
+     * 	- The value of its layer in the other cases
+     * @param x the x-axis coordinate in the simulation area grid
+     * @param y the y-axis coordinate in the simulation area grid
+     * @param uavId the id of the UAV, which is its layer
+     * @return the pheromone value of the grid cell for the UAV
+     */
+    protected double getPheromoneCount(int x, int y, int uavId){
+	if (area.isOutOfArea(x, y))
+	    return 1000.0;
+	PheromoneField field = area.getPheromoneField();
+	int cell = field.getIndex(x/area.getGranularity(), 
+		y/area.getGranularity());
+	float ph = layers.get(uavId, cell);
+	if (ph != ph)
+	    return -layers.getNbEvaporations();
+	return ph;
     }
 
+    /**
+     * We count the pheromones known by a UAV around a particular position
+     * p. We pick the 4 closest points
+     * @param p the instance of {@link Position}
+     * @param uavId the id of the UAV, which is its layer
+     * @return the sum of the pheromones of the UAV on the 4 points
+     */
+    public double getPheromoneCount(Position p, int uavId){
+	double phCount = 0;
+	int x = (int)(p.getX() / area.getGranularity());
+	int y = (int)(p.getY() / area.getGranularity());
+
+	phCount += getPheromoneCount(x*(int)area.getGranularity(), 
+		y*(int)area.getGranularity(), uavId);
+	phCount += getPheromoneCount((x+1)*(int)area.getGranularity(), 
+		y*(int)area.getGranularity(), uavId);
+	phCount += getPheromoneCount(x*(int)area.getGranularity(), 
+		(y+1)*(int)area.getGranularity(), uavId);
+	phCount += getPheromoneCount((x+1)*(int)area.getGranularity(), 
+		(y+1)*(int)area.getGranularity(), uavId);
+
+	return phCount;
+    }
+
+    /**
+     * @return the layers
+     */
+    public PheromoneLayers getLayers() {
+	return layers;
+    }
 
+    /**
+     * The pheromones are held by the layers, indexed by the ids of the
+     * UAVs, so no pheromone is named
+     */
+    @Override
+    public void initPheromones() {
+    }
 
 }
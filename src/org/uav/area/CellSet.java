@@ -0,0 +1,116 @@
+package org.uav.area;
+
+import java.util.Arrays;
+
+/**
+ * @author Julien Schleich
+ * A set of grid cell indexes with constant time insertion, removal and
+ * membership test, and whose elements can be walked without visiting the
+ * cells which are not in the set. The cells belong to a range of
+ * consecutive indexes, so that a grid can be split into several sets.
+ * Removing an element moves the last one to its place, so walking the set
+ * backwards while removing the current element is safe.
+ */
+public class CellSet {
+
+    /** The first cell of the range */
+    protected int firstCell;
+    /** The elements, in no particular order */
+    protected int[] elements;
+    /** The place of each cell of the range in elements, -1 if not in the set */
+    protected int[] places;
+    /** The number of elements */
+    protected int size;
+
+    /**
+     * Constructor, the set is empty
+     * @param nbCells the number of cells, indexes being between 0 and
+     * nbCells-1
+     */
+    public CellSet(int nbCells) {
+	this(0, nbCells);
+    }
+
+    /**
+     * Constructor, the set is empty
+     * @param firstCell the first cell of the range
+     * @param nbCells the number of cells of the range
+     */
+    public CellSet(int firstCell, int nbCells) {
+	this.firstCell = firstCell;
+	this.elements = new int[nbCells];
+	this.places = new int[nbCells];
+	Arrays.fill(places, -1);
+    }
+
+    /**
+     * @param cell the index of a cell
+     * @return true if the cell is in the set
+     */
+    public boolean contains(int cell){
+	return places[cell - firstCell] >= 0;
+    }
+
+    /**
+     * Adds a cell, nothing is done if it is already in the set
+     * @param cell the index of the cell
+     */
+    public void add(int cell){
+	if (places[cell - firstCell] >= 0)
+	    return;
+	elements[size] = cell;
+	places[cell - firstCell] = size;
+	size++;
+    }
+
+    /**
+     * Removes a cell, nothing is done if it is not in the set
+     * @param cell the index of the cell
+     */
+    public void remove(int cell){
+	int place = places[cell - firstCell];
+	if (place < 0)
+	    return;
+	size--;
+	int last = elements[size];
+	elements[place] = last;
+	places[last - firstCell] = place;
+	places[cell - firstCell] = -1;
+    }
+
+    /**
+     * Adds every cell
+     */
+    public void addAll(){
+	for (int i = 0; i < elements.length; i++){
+	    elements[i] = firstCell + i;
+	    places[i] = i;
+	}
+	size = elements.length;
+    }
+
+    /**
+     * Removes every cell
+     */
+    public void clear(){
+	for (int i = 0; i < size; i++)
+	    places[elements[i] - firstCell] = -1;
+	size = 0;
+    }
+
+    /**
+     * @param i a place between 0 and size()-1
+     * @return the cell at this place
+     */
+    public int get(int i){
+	return elements[i];
+    }
+
+    /**
+     * @return the number of cells in the set
+     */
+    public int size(){
+	return size;
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.uav.area;
+
+/**
+ * @author Julien Schleich
+ * The grid cells within a given radius of a center cell, as offsets from
+ * the center: the cell (dx, dy) belongs to the disk if dx^2+dy^2 < r^2.
+ * The disk is stored row by row, each row dx being the cells from -h to h
+ * on the y axis, so that clipping it to a grid is a matter of bounds and
+ * walking it never tests the distance of a cell.
+ */
+public class DiskStencil {
+
+    /** The radius, in number of cells */
+    protected int radius;
+    /** The half width h of each row, -1 if the row is empty */
+    protected int[] halfWidths;
+    /** The number of cells of the disk */
+    protected int nbCells;
+
+    /**
+     * Constructor
+     * @param radius the radius, in number of cells
+     */
+    public DiskStencil(int radius) {
+	this.radius = Math.max(0, radius);
+	this.halfWidths = new int[2 * this.radius + 1];
+	long rSquare = (long)this.radius * this.radius;
+	for (int dx = -this.radius; dx <= this.radius; dx++){
+	    int h = -1;
+	    while ((long)(h + 1) * (h + 1) + (long)dx * dx < rSquare)
+		h++;
+	    halfWidths[dx + this.radius] = h;
+	    nbCells += 2 * h + 1;
+	}
+    }
+
+    /**
+     * @param dx the offset of the row on the x axis
+     * @return the half width of the row, -1 if it has no cell
+     */
+    public int getHalfWidth(int dx){
+	if ((dx < -radius) || (dx > radius))
+	    return -1;
+	return halfWidths[dx + radius];
+    }
+
+    /**
+     * Tests if a cell belongs to the disk
+     * @param dx the offset of the cell on the x axis
+     * @param dy the offset of the cell on the y axis
+     * @return true if the cell is within the radius
+     */
+    public boolean contains(int dx, int dy){
+	int h = getHalfWidth(dx);
+	return (dy >= -h) && (dy <= h);
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the radius
+     */
+    public int getRadius() {
+	return radius;
+    }
+
+    /**
+     * @return the number of cells of the disk, before any clipping
+     */
+    public int getNbCells() {
+	return nbCells;
+    }
+
+}
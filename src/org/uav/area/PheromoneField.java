@@ -0,0 +1,357 @@
+package org.uav.area;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author Julien Schleich
+ * A primitive storage for the pheromone level of each grid cell of a
+ * {@link RectangularSimulationArea}.
+ * Values are kept in a flat array indexed by x*stepY+y so that reading or
+ * writing a cell neither builds a node identifier nor boxes a value in the
+ * attribute map of a graph node.
+ * The field also implements the evaporation of the ACO modules: a positive
+ * value decreases by the evaporation speed down to zero, any other value
+ * decreases by one (it is then the age of the last scan). Only the cells
+ * with a positive value are visited by an evaporation, the others store
+ * the evaporation from which they age and their value is computed when
+ * read, so that the cost of an evaporation depends on the recently
+ * scanned area and not on the size of the grid.
+ * The cells with a positive value are kept by stripes of consecutive rows,
+ * which are evaporated in parallel when there are enough of them.
+ */
+public class PheromoneField {
+
+    /** The maximum number of stripes */
+    public static final int MAX_NB_STRIPES = 256;
+
+    /** The default number of positive cells from which the evaporation is parallel */
+    public static final int DEFAULT_PARALLELISM_THRESHOLD = 1 << 16;
+
+    /** The number of cells on the x axis */
+    protected int stepX;
+    /** The number of cells on the y axis */
+    protected int stepY;
+    /** The pheromone value of each cell, not aged if not positive */
+    protected double[] values;
+    /** The number of evaporations done when each value was stored */
+    protected int[] lastUpdate;
+    /** The number of evaporations done */
+    protected int nbEvaporations;
+    /** The cells with a positive value, one set per stripe of rows */
+    protected CellSet[] activeCells;
+    /** The number of cells of a stripe */
+    protected int stripeSize;
+    /** The number of positive cells from which the evaporation is parallel, 0 for never */
+    protected int parallelismThreshold = DEFAULT_PARALLELISM_THRESHOLD;
+    /** The pool evaporating the stripes in parallel, the common pool if null */
+    protected ForkJoinPool pool;
+    /** The coverage counters notified of each change, null if none */
+    protected CoverageCounters counters;
+
+    /**
+     * Constructor, every cell starts with a zero pheromone value
+     * @param stepX the number of cells on the x axis
+     * @param stepY the number of cells on the y axis
+     */
+    public PheromoneField(int stepX, int stepY) {
+	this.stepX = stepX;
+	this.stepY = stepY;
+	this.values = new double[stepX * stepY];
+	this.lastUpdate = new int[stepX * stepY];
+	int nbCells = stepX * stepY;
+	int nbRows = (stepX + MAX_NB_STRIPES - 1) / MAX_NB_STRIPES;
+	this.stripeSize = Math.max(1, nbRows * stepY);
+	int nbStripes = Math.max(1, (nbCells + stripeSize - 1) / stripeSize);
+	this.activeCells = new CellSet[nbStripes];
+	for (int i = 0; i < nbStripes; i++){
+	    int first = i * stripeSize;
+	    activeCells[i] = new CellSet(first, 
+		    Math.max(0, Math.min(stripeSize, nbCells - first)));
+	}
+    }
+
+    /**
+     * Ages a value which is not positive, as the same number of
+     * evaporations would do one after the other
+     * @param value the value, negative or zero
+     * @param nbEvaporations the number of evaporations
+     * @return the aged value
+     */
+    public static double age(double value, int nbEvaporations){
+	if (nbEvaporations == 0)
+	    return value;
+	/** Exact as long as the value is an integer far from the precision */
+	if ((value == Math.rint(value)) && (Math.abs(value) < 0x1p52))
+	    return value - nbEvaporations;
+	for (int i = 0; i < nbEvaporations; i++)
+	    value -= 1;
+	return value;
+    }
+
+    /**
+     * Returns the index of a cell in the flat array
+     * @param x the x axis value of the cell
+     * @param y the y axis value of the cell
+     * @return the index of the cell
+     */
+    public int getIndex(int x, int y){
+	return x * stepY + y;
+    }
+
+    /**
+     * Tests if a cell belongs to the field
+     * @param x the x axis value of the cell
+     * @param y the y axis value of the cell
+     * @return true if the cell exists, false otherwise
+     */
+    public boolean isInField(int x, int y){
+	return (x >= 0) && (x < stepX) && (y >= 0) && (y < stepY);
+    }
+
+    /**
+     * @param x the x axis value of the cell
+     * @param y the y axis value of the cell
+     * @return the pheromone value of the cell
+     */
+    public double get(int x, int y){
+	return get(x * stepY + y);
+    }
+
+    /**
+     * @param x the x axis value of the cell
+     * @param y the y axis value of the cell
+     * @param value the pheromone value to set
+     */
+    public void set(int x, int y, double value){
+	set(x * stepY + y, value);
+    }
+
+    /**
+     * @param index the index of the cell
+     * @return the pheromone value of the cell
+     */
+    public double get(int index){
+	double value = values[index];
+	if (value > 0.0)
+	    return value;
+	return age(value, nbEvaporations - lastUpdate[index]);
+    }
+
+    /**
+     * @param index the index of the cell
+     * @param value the pheromone value to set
+     */
+    public void set(int index, double value){
+	if (counters != null){
+	    counters.pheromoneChanged(get(index), value);
+	    if (!(values[index] > 0.0))
+		counters.cancelAgeing(values[index], lastUpdate[index], 
+			nbEvaporations);
+	    if (!(value > 0.0))
+		counters.scheduleAgeing(value, nbEvaporations);
+	}
+	values[index] = value;
+	lastUpdate[index] = nbEvaporations;
+	if (value > 0.0)
+	    activeCells[index / stripeSize].add(index);
+	else
+	    activeCells[index / stripeSize].remove(index);
+    }
+
+    /**
+     * Sets the same pheromone value on every cell
+     * @param value the pheromone value
+     */
+    public void fill(double value){
+	Arrays.fill(values, value);
+	Arrays.fill(lastUpdate, nbEvaporations);
+	for (int i = 0; i < activeCells.length; i++){
+	    if (value > 0.0)
+		activeCells[i].addAll();
+	    else
+		activeCells[i].clear();
+	}
+	if (counters != null)
+	    counters.recount(this);
+    }
+
+    /**
+     * Evaporates the pheromone of every cell, only the cells with a
+     * positive value are visited
+     * @param evaporationSpeed the decrease of a positive value
+     */
+    public void evaporate(double evaporationSpeed){
+	nbEvaporations++;
+	int nbExpired = 0;
+	if ((parallelismThreshold > 0) && (activeCells.length > 1) 
+		&& (getNbActiveCells() >= parallelismThreshold)){
+	    ForkJoinPool p = (pool == null) ? ForkJoinPool.commonPool() : pool;
+	    nbExpired = p.invoke(
+		    new StripesEvaporation(0, activeCells.length, evaporationSpeed));
+	}
+	else
+	    for (int i = 0; i < activeCells.length; i++)
+		nbExpired += evaporateStripe(i, evaporationSpeed);
+	if (counters != null){
+	    counters.scheduleAgeing(0.0, nbEvaporations, nbExpired);
+	    counters.evaporated(nbEvaporations);
+	}
+    }
+
+    /**
+     * Evaporates the cells with a positive value of one stripe.
+     * A positive value decreasing down to zero stays scanned, so the
+     * counters only change when the expired cells age.
+     * @param stripe the index of the stripe
+     * @param evaporationSpeed the decrease of a positive value
+     * @return the number of cells whose value reached zero
+     */
+    protected int evaporateStripe(int stripe, double evaporationSpeed){
+	CellSet cells = activeCells[stripe];
+	int nbExpired = 0;
+	for (int i = cells.size() - 1; i >= 0; i--){
+	    int index = cells.get(i);
+	    double phValue = values[index] - evaporationSpeed;
+	    if (phValue < 0.0)
+		phValue = 0.0;
+	    values[index] = phValue;
+	    lastUpdate[index] = nbEvaporations;
+	    if (!(phValue > 0.0)){
+		cells.remove(index);
+		nbExpired++;
+	    }
+	}
+	return nbExpired;
+    }
+
+    /**
+     * @author Julien Schleich
+     * The evaporation of a range of stripes, split in two halves until a
+     * single stripe is left
+     */
+    protected class StripesEvaporation extends RecursiveTask<Integer> {
+	private static final long serialVersionUID = 1L;
+
+	/** The range of stripes, from included and to excluded */
+	protected int from;
+	protected int to;
+	/** The decrease of a positive value */
+	protected double evaporationSpeed;
+
+	public StripesEvaporation(int from, int to, double evaporationSpeed) {
+	    this.from = from;
+	    this.to = to;
+	    this.evaporationSpeed = evaporationSpeed;
+	}
+
+	@Override
+	protected Integer compute() {
+	    if (to - from == 1)
+		return evaporateStripe(from, evaporationSpeed);
+	    int middle = (from + to) >>> 1;
+	    StripesEvaporation left = 
+		    new StripesEvaporation(from, middle, evaporationSpeed);
+	    left.fork();
+	    int right = 
+		    new StripesEvaporation(middle, to, evaporationSpeed).compute();
+	    return left.join() + right;
+	}
+    }
+
+    /*********************************************
+     *
+     * Getters / Setters
+     *
+     ********************************************/
+
+    /**
+     * @return the number of cells
+     */
+    public int getNbCells() {
+	return values.length;
+    }
+
+    /**
+     * @return the stepX
+     */
+    public int getStepX() {
+	return stepX;
+    }
+
+    /**
+     * @return the stepY
+     */
+    public int getStepY() {
+	return stepY;
+    }
+
+    /**
+     * @return the number of evaporations done
+     */
+    public int getNbEvaporations() {
+	return nbEvaporations;
+    }
+
+    /**
+     * @return the number of cells with a positive value
+     */
+    public int getNbActiveCells() {
+	int nb = 0;
+	for (int i = 0; i < activeCells.length; i++)
+	    nb += activeCells[i].size();
+	return nb;
+    }
+
+    /**
+     * @return the number of stripes
+     */
+    public int getNbStripes() {
+	return activeCells.length;
+    }
+
+    /**
+     * @return the parallelismThreshold
+     */
+    public int getParallelismThreshold() {
+	return parallelismThreshold;
+    }
+
+    /**
+     * @param parallelismThreshold the number of positive cells from which 
+     * the evaporation is parallel, 0 for never
+     */
+    public void setParallelismThreshold(int parallelismThreshold) {
+	this.parallelismThreshold = parallelismThreshold;
+    }
+
+    /**
+     * @return the pool, null for the common pool
+     */
+    public ForkJoinPool getPool() {
+	return pool;
+    }
+
+    /**
+     * @param pool the pool to set, null for the common pool
+     */
+    public void setPool(ForkJoinPool pool) {
+	this.pool = pool;
+    }
+
+    /**
+     * @return the coverage counters, null if none
+     */
+    public CoverageCounters getCounters() {
+	return counters;
+    }
+
+    /**
+     * @param counters the coverage counters to notify of each change
+     */
+    public void setCounters(CoverageCounters counters) {
+	this.counters = counters;
+    }
+
+}
@@ -0,0 +1,247 @@
+package org.uav.area;
+
+import java.util.Arrays;
+
+/**
+ * @author Julien Schleich
+ * A primitive storage for several pheromone layers over the grid cells of
+ * a {@link RectangularSimulationArea}, one layer per UAV, indexed as the
+ * {@link PheromoneField}. Each layer is a dense plane of single precision
+ * values, a cell holding no pheromone of a layer being NaN.
+ * The layers evaporate as the field does: a positive value decreases by
+ * the evaporation speed down to zero, any other value decreases by one.
+ * A value is stored with the evaporation from which it evaporates and is
+ * brought up to date in constant time when read, so an evaporation visits
+ * no layer.
+ * The maximum over the layers of each cell is maintained along, as a copy
+ * of the stored value of a layer holding it: both evaporate alike, and
+ * the maximum stays equal to that layer until it changes.
+ */
+public class PheromoneLayers {
+
+    /** The value of a cell holding no pheromone */
+    public static final float NONE = Float.NaN;
+
+    /** The number of cells of each layer */
+    protected int nbCells;
+    /** The decrease of a positive value at each evaporation */
+    protected float evaporationSpeed;
+    /** The number of evaporations done */
+    protected int nbEvaporations;
+
+    /** The values of each layer, not evaporated since their update */
+    protected float[][] layers;
+    /** The number of evaporations done when each value was stored */
+    protected int[][] layerUpdates;
+
+    /** The maximum over the layers of each cell, and its update */
+    protected float[] max;
+    protected int[] maxUpdates;
+
+    /**
+     * Constructor, no cell holds any pheromone
+     * @param nbLayers the number of layers
+     * @param nbCells the number of cells of each layer
+     * @param evaporationSpeed the decrease of a positive value
+     */
+    public PheromoneLayers(int nbLayers, int nbCells, float evaporationSpeed) {
+	this.nbCells = nbCells;
+	this.evaporationSpeed = evaporationSpeed;
+	this.layers = new float[nbLayers][nbCells];
+	this.layerUpdates = new int[nbLayers][nbCells];
+	for (int i = 0; i < nbLayers; i++)
+	    Arrays.fill(layers[i], NONE);
+	this.max = new float[nbCells];
+	this.maxUpdates = new int[nbCells];
+	Arrays.fill(max, NONE);
+    }
+
+    /**
+     * Evaporates a value, as the same number of evaporations would do one
+     * after the other, in constant time: a positive value decreases by
+     * nbEvaporations * evaporationSpeed down to zero, the evaporations left
+     * then decrease it by one each
+     * @param value the value
+     * @param evaporationSpeed the decrease of a positive value
+     * @param nbEvaporations the number of evaporations
+     * @return the evaporated value
+     */
+    public static float evaporate(float value, float evaporationSpeed,
+	    int nbEvaporations){
+	if ((nbEvaporations == 0) || (value != value))
+	    return value;
+	if (value > 0.0f){
+	    if (!(evaporationSpeed > 0.0f))
+		return value;
+	    double positive = value - (double)evaporationSpeed * nbEvaporations;
+	    if (positive > 0)
+		return (float)positive;
+	    nbEvaporations -= getDelayToZero(value, evaporationSpeed);
+	    if (nbEvaporations == 0)
+		return 0.0f;
+	    value = 0.0f;
+	}
+	/** Exact as long as the value stays an integer within the precision */
+	if ((value == Math.rint(value))
+		&& (Math.abs((double)value - nbEvaporations) < 0x1p24))
+	    return (float)((double)value - nbEvaporations);
+	for (int i = 0; i < nbEvaporations; i++)
+	    value -= 1.0f;
+	return value;
+    }
+
+    /**
+     * @param value a positive value
+     * @param evaporationSpeed the decrease of a positive value, positive
+     * @return the number of evaporations after which the value is zero
+     */
+    protected static int getDelayToZero(float value, float evaporationSpeed){
+	double speed = evaporationSpeed;
+	int delay = Math.max(1, (int)Math.ceil(value / speed));
+	while ((delay > 1) && (value - speed * (delay - 1) <= 0))
+	    delay--;
+	while (value - speed * delay > 0)
+	    delay++;
+	return delay;
+    }
+
+    /**
+     * Evaporates every layer
+     */
+    public void evaporation(){
+	nbEvaporations++;
+    }
+
+    /**
+     * @param layer the index of the layer
+     * @param cell the index of the cell
+     * @return the value of the layer on the cell, NaN if none
+     */
+    public float get(int layer, int cell){
+	return evaporate(layers[layer][cell], evaporationSpeed,
+		nbEvaporations - layerUpdates[layer][cell]);
+    }
+
+    /**
+     * Sets the value of a layer on a cell and updates the maximum
+     * @param layer the index of the layer
+     * @param cell the index of the cell
+     * @param value the value to set
+     */
+    public void set(int layer, int cell, float value){
+	float old = get(layer, cell);
+	layers[layer][cell] = value;
+	layerUpdates[layer][cell] = nbEvaporations;
+	float m = getMax(cell);
+	if ((value >= m) || (m != m))
+	    setMax(cell, value);
+	else if (old == m)
+	    /** The maximum may have been lowered */
+	    updateMax(cell);
+    }
+
+    /**
+     * Raises the value of a layer on a cell to the value of another layer,
+     * if it is higher or if the layer holds no pheromone, by copying the
+     * stored value. The maximum over the layers is unchanged.
+     * @param from the index of the layer read
+     * @param to the index of the layer raised
+     * @param cell the index of the cell
+     */
+    public void merge(int from, int to, int cell){
+	float valueFrom = get(from, cell);
+	float valueTo = get(to, cell);
+	if ((valueFrom > valueTo) 
+		|| ((valueTo != valueTo) && (valueFrom == valueFrom))){
+	    layers[to][cell] = layers[from][cell];
+	    layerUpdates[to][cell] = layerUpdates[from][cell];
+	}
+    }
+
+    /**
+     * Same as {@link #merge(int, int, int)} on consecutive cells
+     * @param from the index of the layer read
+     * @param to the index of the layer raised
+     * @param firstCell the index of the first cell
+     * @param lastCell the index of the last cell, included
+     */
+    public void merge(int from, int to, int firstCell, int lastCell){
+	for (int cell = firstCell; cell <= lastCell; cell++)
+	    merge(from, to, cell);
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the maximum over the layers of the cell, NaN if none
+     */
+    public float getMax(int cell){
+	return evaporate(max[cell], evaporationSpeed,
+		nbEvaporations - maxUpdates[cell]);
+    }
+
+    /**
+     * Recomputes the maximum of a cell from its layers
+     * @param cell the index of the cell
+     */
+    protected void updateMax(int cell){
+	float m = NONE;
+	int layer = -1;
+	for (int i = 0; i < layers.length; i++){
+	    float value = get(i, cell);
+	    if ((value > m) || (m != m)){
+		m = value;
+		layer = i;
+	    }
+	}
+	if (layer < 0)
+	    setMax(cell, NONE);
+	else {
+	    max[cell] = layers[layer][cell];
+	    maxUpdates[cell] = layerUpdates[layer][cell];
+	}
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @param value the maximum over the layers of the cell
+     */
+    protected void setMax(int cell, float value){
+	max[cell] = value;
+	maxUpdates[cell] = nbEvaporations;
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the number of layers
+     */
+    public int getNbLayers() {
+	return layers.length;
+    }
+
+    /**
+     * @return the number of cells of each layer
+     */
+    public int getNbCells() {
+	return nbCells;
+    }
+
+    /**
+     * @return the evaporationSpeed
+     */
+    public float getEvaporationSpeed() {
+	return evaporationSpeed;
+    }
+
+    /**
+     * @return the number of evaporations done
+     */
+    public int getNbEvaporations() {
+	return nbEvaporations;
+    }
+
+}
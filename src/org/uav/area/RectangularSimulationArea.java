@@ -3,7 +3,7 @@
  */
 package org.uav.area;
 
-import java.util.Iterator;
+import java.util.Arrays;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
@@ -36,6 +36,23 @@ public class RectangularSimulationArea extends AbstractSimulationArea {
     /** Y-axis position of the base station */
     protected int baseY;
 
+    /** The pheromone level of each grid cell */
+    protected PheromoneField pheromones;
+    /** The scan history of each grid cell, null until set */
+    protected ScanLog scanLog;
+    /** 
+     * The grid cell nodes, indexed as in the {@link PheromoneField}, null
+     * when the area has no graph
+     */
+    protected Node[] cells;
+    /** If true, the pheromone levels are mirrored on the grid nodes */
+    protected boolean mirrorOnGraph = true;
+    /** The level shown by each grid node, NaN if not shown yet */
+    protected double[] shownLevels;
+    /** Scratch arrays of the cells whose level changed */
+    protected int[] changedCells;
+    protected double[] changedLevels;
+
     /*********************************************
      * 
      * Constructors
@@ -45,7 +62,7 @@ public class RectangularSimulationArea extends AbstractSimulationArea {
     /**
      * Constructor with (0,0) being one of the extreme points
      * of the simulation area
-     * @param gra the instance of graph
+     * @param gra the instance of graph, null for no representation
      * @param maxX the maximum value of x axis
      * @param maxY the maximum value of y axis
      * @param granu the granularity 
@@ -87,10 +104,15 @@ public class RectangularSimulationArea extends AbstractSimulationArea {
 
     /**
      * The main method to generate the simulation space
-     * reprensentation
+     * reprensentation. Without graph, only the pheromone field is built.
      */
     @Override
     public void generateEnvironment() {
+	if (g == null){
+	    this.pheromones = new PheromoneField(
+		    (maxX-minX)/granularity, (maxY-minY)/granularity);
+	    return;
+	}
 	generateGrid();
 	generateBaseStation();
 	generateStatsNodes();
@@ -102,15 +124,21 @@ public class RectangularSimulationArea extends AbstractSimulationArea {
      * Each grid cell is a node
      */
     public void generateGrid(){
-	double stepX = (maxX-minX)/granularity;
-	double stepY = (maxY-minY)/granularity;
+	int stepX = (maxX-minX)/granularity;
+	int stepY = (maxY-minY)/granularity;
+	this.pheromones = new PheromoneField(stepX, stepY);
+	this.cells = new Node[stepX * stepY];
+	this.shownLevels = new double[stepX * stepY];
+	Arrays.fill(shownLevels, Double.NaN);
+	this.changedCells = new int[stepX * stepY];
+	this.changedLevels = new double[stepX * stepY];
 	for (int i=0; i<stepX; i++){
 	    for (int j=0; j<stepY; j++){
 		Node n = g.addNode(i+"-"+j);
 		n.setAttribute("x", i*granularity);
 		n.setAttribute("y", j*granularity);
 		n.setAttribute("ui.class", "grid");
-		n.setAttribute("pheromone", 0.0);				
+		cells[pheromones.getIndex(i, j)] = n;
 	    }
 	}
     }
@@ -219,20 +247,73 @@ public class RectangularSimulationArea extends AbstractSimulationArea {
      * 	- If the value is between 0 and 1, then the color will also
      * be between firstColor and secondColor
      * 	- If the value is lower than zero, the color will be firstColor
+     * Nothing is done when the grid is not mirrored on the graph, and 
+     * only the cells whose color changed are updated.
      */
     @Override
     public void refreshDisplay() {
-	Iterator<Node> it = g.getNodeIterator();
-	while (it.hasNext()){
-	    Node n = it.next();
-	    if (n.hasAttribute("pheromone")){
-		double phCount = n.getAttribute("pheromone");
-		if (phCount < 0)
-		    n.setAttribute("ui.color", 0);
-		else
-		    n.setAttribute("ui.color", phCount);
+	if (!mirrorOnGraph || (cells == null))
+	    return;
+	int nbChanged = collectChangedCells(changedCells, changedLevels);
+	for (int i=0; i<nbChanged; i++)
+	    refreshCell(changedCells[i], changedLevels[i]);
+    }
+
+    /**
+     * Finds the cells whose color changed since they were last collected,
+     * they are then considered as shown
+     * @param indexes filled with the index of each changed cell
+     * @param levels filled with the level to show for each changed cell
+     * @return the number of changed cells, 0 if the area has no graph
+     */
+    public int collectChangedCells(int[] indexes, double[] levels){
+	if (cells == null)
+	    return 0;
+	int nbChanged = 0;
+	for (int i=0; i<cells.length; i++){
+	    double phCount = pheromones.get(i);
+	    double level = (phCount < 0) ? 0.0 : phCount;
+	    if (level != shownLevels[i]){
+		shownLevels[i] = level;
+		indexes[nbChanged] = i;
+		levels[nbChanged] = level;
+		nbChanged++;
 	    }
 	}
+	return nbChanged;
+    }
+
+    /**
+     * Sets the color of a grid cell
+     * @param index the index of the cell in the {@link PheromoneField}
+     * @param level the pheromone level to show, not negative
+     */
+    public void refreshCell(int index, double level){
+	cells[index].setAttribute("ui.color", level);
+    }
+
+    /**
+     * Returns the node representing a grid cell
+     * @param x the x axis value of the cell
+     * @param y the y axis value of the cell
+     * @return the node, null if the cell does not exist or the area has 
+     * no graph
+     */
+    public Node getCell(int x, int y){
+	if ((cells == null) || !pheromones.isInField(x, y))
+	    return null;
+	return cells[pheromones.getIndex(x, y)];
+    }
+
+    /**
+     * Returns the node representing a grid cell
+     * @param index the index of the cell in the {@link PheromoneField}
+     * @return the node, null if the area has no graph
+     */
+    public Node getCell(int index){
+	if (cells == null)
+	    return null;
+	return cells[index];
     }
 
 
@@ -273,6 +354,41 @@ public class RectangularSimulationArea extends AbstractSimulationArea {
 	return granularity;
     }
 
+    /**
+     * @return the pheromones
+     */
+    public PheromoneField getPheromoneField() {
+	return pheromones;
+    }
+
+    /**
+     * @return the scanLog
+     */
+    public ScanLog getScanLog() {
+	return scanLog;
+    }
+
+    /**
+     * @param scanLog the scanLog to set
+     */
+    public void setScanLog(ScanLog scanLog) {
+	this.scanLog = scanLog;
+    }
+
+    /**
+     * @return the mirrorOnGraph
+     */
+    public boolean isMirrorOnGraph() {
+	return mirrorOnGraph;
+    }
+
+    /**
+     * @param mirrorOnGraph the mirrorOnGraph to set
+     */
+    public void setMirrorOnGraph(boolean mirrorOnGraph) {
+	this.mirrorOnGraph = mirrorOnGraph;
+    }
+
     public void setGranularity(int granularity) {
 	this.granularity = granularity;
     }
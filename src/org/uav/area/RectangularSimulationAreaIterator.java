@@ -24,7 +24,8 @@ public class RectangularSimulationAreaIterator implements Iterator<Node> {
     public RectangularSimulationAreaIterator(RectangularSimulationArea area){
 	this.area = area;
 	this.curX = 0;
-	this.curY = 0;
+	/** The first call to next() returns the cell (0,0) */
+	this.curY = -1;
 	this.stepX = this.area.maxX / this.area.granularity;
 	this.stepY = this.area.maxY / this.area.granularity;
     }
@@ -43,11 +44,25 @@ public class RectangularSimulationAreaIterator implements Iterator<Node> {
 		curX++;
 		curY=0;
 	    }
-	    res = area.getG().getNode(curX+"-"+curY);
+	    res = area.getCell(curX, curY);
 	}
 	return res;
     }
 
+    /**
+     * @return the x axis value of the last returned cell
+     */
+    public int getCurX() {
+	return curX;
+    }
+
+    /**
+     * @return the y axis value of the last returned cell
+     */
+    public int getCurY() {
+	return curY;
+    }
+
     public void remove() {
 
 
@@ -0,0 +1,155 @@
+package org.uav.area;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * @author Julien Schleich
+ * The scan history of the grid cells of a {@link RectangularSimulationArea},
+ * stored column by column in primitive arrays indexed as the
+ * {@link PheromoneField}: for each cell, its number of scans, the time of
+ * its last scan and the last UAV which flew over it.
+ * The full history can also be kept as an append-only buffer of
+ * (cell, time) events, which is off by default.
+ */
+public class ScanLog {
+
+    /** The last UAV of a cell never flown over */
+    public static final int NO_UAV = Integer.MIN_VALUE;
+
+    /** The last scan time of a cell never scanned */
+    public static final int NEVER = -1;
+
+    /** The number of scans of each cell */
+    protected int[] nbScans;
+    /** The time of the last scan of each cell */
+    protected int[] lastScanTime;
+    /** The last UAV which flew over each cell */
+    protected int[] lastUAV;
+
+    /** The (cell, time) scan events, null if not kept */
+    protected IntBuffer events;
+
+    /**
+     * Constructor, no cell is scanned
+     * @param nbCells the number of cells
+     * @param keepEvents true to keep every (cell, time) scan event
+     */
+    public ScanLog(int nbCells, boolean keepEvents) {
+	this.nbScans = new int[nbCells];
+	this.lastScanTime = new int[nbCells];
+	this.lastUAV = new int[nbCells];
+	Arrays.fill(lastScanTime, NEVER);
+	Arrays.fill(lastUAV, NO_UAV);
+	if (keepEvents)
+	    this.events = IntBuffer.allocate(2 * nbCells);
+    }
+
+    /**
+     * Records a scan of a cell
+     * @param cell the index of the cell
+     * @param time the timestep of the scan
+     */
+    public void addScan(int cell, int time){
+	nbScans[cell]++;
+	lastScanTime[cell] = time;
+	if (events != null){
+	    if (events.remaining() < 2){
+		IntBuffer bigger = IntBuffer.allocate(2 * events.capacity());
+		events.flip();
+		bigger.put(events);
+		events = bigger;
+	    }
+	    events.put(cell).put(time);
+	}
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the number of scans of the cell
+     */
+    public int getNbScans(int cell){
+	return nbScans[cell];
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the time of the last scan of the cell, NEVER if none
+     */
+    public int getLastScanTime(int cell){
+	return lastScanTime[cell];
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the last UAV which flew over the cell, NO_UAV if none
+     */
+    public int getLastUAV(int cell){
+	return lastUAV[cell];
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @param uavId the last UAV which flew over the cell
+     */
+    public void setLastUAV(int cell, int uavId){
+	lastUAV[cell] = uavId;
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the number of cells
+     */
+    public int getNbCells() {
+	return nbScans.length;
+    }
+
+    /**
+     * @return true if the (cell, time) scan events are kept
+     */
+    public boolean isKeepingEvents() {
+	return events != null;
+    }
+
+    /**
+     * @return the number of scan events kept
+     */
+    public int getNbEvents() {
+	return (events == null) ? 0 : events.position() / 2;
+    }
+
+    /**
+     * The scan events as a read-only buffer of (cell, time) pairs, in the
+     * order they happened
+     * @return the events, null if not kept
+     */
+    public IntBuffer getEvents() {
+	if (events == null)
+	    return null;
+	IntBuffer res = events.asReadOnlyBuffer();
+	res.flip();
+	return res;
+    }
+
+    /**
+     * Direct access to the number of scans of each cell
+     * @return the nbScans
+     */
+    public int[] getNbScans() {
+	return nbScans;
+    }
+
+    /**
+     * Direct access to the time of the last scan of each cell
+     * @return the lastScanTime
+     */
+    public int[] getLastScanTime() {
+	return lastScanTime;
+    }
+
+}
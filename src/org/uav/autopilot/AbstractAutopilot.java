@@ -132,6 +132,14 @@ public abstract class AbstractAutopilot {
 	updatePosition();	
     }
 
+    /**
+     * Applies the same update rules as {@link #doNextMove()} to a 
+     * kinematic state instead of the current status. Neither the 
+     * autopilot nor its destination is modified.
+     * @param state the kinematic state to update
+     */
+    abstract protected void predictNextMove(KinematicState state);
+
     /*********************************************
      * 
      * Destination-based methods
@@ -153,6 +161,49 @@ public abstract class AbstractAutopilot {
 	this.currentDestination.setCurrentDestination(newPosition);
     }
 
+    /**
+     * Predicts the trajectory going from a status to a destination in
+     * nbSimulationStep steps. The prediction works on the given scratch 
+     * state, so that the autopilot, its destination and the graph are 
+     * left untouched and that no object is allocated.
+     * @param initStatus the status (position, heading ...) to start
+     * @param destX the x-axis coordinate of the destination
+     * @param destY the y-axis coordinate of the destination
+     * @param nbSimulationStep the number of simulation steps
+     * @param state the scratch state, holding the last point at the end
+     * @param path if not null, filled with the x and y coordinates of 
+     * each step (x0, y0, x1, y1 ...), at least 2*nbSimulationStep long
+     * @return the state
+     */
+    public KinematicState predictTrajectory(Status initStatus, 
+	    double destX, double destY, int nbSimulationStep, 
+	    KinematicState state, double[] path) {
+	state.load(initStatus, destX, destY);
+	for (int i=0; i < nbSimulationStep; i++){
+	    predictNextMove(state);
+	    if (path != null){
+		path[2*i] = state.x;
+		path[2*i+1] = state.y;
+	    }
+	}
+	return state;
+    }
+
+    /**
+     * Predicts the last point of the trajectory going from the current
+     * position to a destination in nbSimulationStep steps
+     * @param destX the x-axis coordinate of the destination
+     * @param destY the y-axis coordinate of the destination
+     * @param nbSimulationStep the number of simulation steps
+     * @param state the scratch state, holding the last point at the end
+     * @return the state
+     */
+    public KinematicState predictTrajectory(double destX, double destY, 
+	    int nbSimulationStep, KinematicState state) {
+	return predictTrajectory(this.currentStatus, destX, destY, 
+		nbSimulationStep, state, null);
+    }
+
     /**
      * This methods computes the next nbSimulationStep positions composing
      * the trajectory to a destination
@@ -162,24 +213,8 @@ public abstract class AbstractAutopilot {
      */
     public Position[] getTrajectorySteps(Position destination, 
 	    int nbSimulationStep) {
-	Position[] trajectory = new Position[nbSimulationStep];
-
-	/** Backuping the current autopilot */
-	Status statusBackup = new Status(this.currentStatus);
-	Destination destBackup = new Destination(this.currentDestination);
-
-	/** Trajectory computation */
-	this.currentDestination.setCurrentDestination(destination);
-	for (int i=0; i < nbSimulationStep; i++){
-	    this.doNextMove();
-	    trajectory[i] = this.currentStatus.getCurrentPosition();
-	}
-
-	/** Restoring the autopilot */
-	this.currentStatus = statusBackup;
-	this.currentDestination = destBackup;
-
-	return trajectory;
+	return getTrajectorySteps(this.currentStatus, destination, 
+		nbSimulationStep);
     }
 
     /**
@@ -191,9 +226,8 @@ public abstract class AbstractAutopilot {
      */
     public Position getLastPointOnTrajectory(Position destination, 
 	    int nbSimulationStep) {
-	Position[] trajectory = getTrajectorySteps(destination, 
+	return getLastPointOnTrajectory(this.currentStatus, destination, 
 		nbSimulationStep);
-	return trajectory[trajectory.length-1];
     }
 
     /**
@@ -207,23 +241,11 @@ public abstract class AbstractAutopilot {
     public Position[] getTrajectorySteps(Status initStatus, 
 	    Position destination, int nbSimulationStep) {
 	Position[] trajectory = new Position[nbSimulationStep];
-
-	/** Backuping the current autopilot */
-	Status statusBackup = new Status(this.currentStatus);
-	Destination destBackup = new Destination(this.currentDestination);
-
-	/** Trajectory computation */
-	this.currentDestination.setCurrentDestination(destination);
-	this.setCurrentStatus(initStatus);
-	for (int i=0; i < nbSimulationStep; i++){
-	    this.doNextMove();
-	    trajectory[i] = this.currentStatus.getCurrentPosition();
-	}
-
-	/** Restoring the autopilot */
-	this.currentStatus = statusBackup;
-	this.currentDestination = destBackup;
-
+	double[] path = new double[2*nbSimulationStep];
+	predictTrajectory(initStatus, destination.getX(), destination.getY(),
+		nbSimulationStep, new KinematicState(), path);
+	for (int i=0; i < nbSimulationStep; i++)
+	    trajectory[i] = new Position(path[2*i], path[2*i+1]);
 	return trajectory;
     }
 
@@ -237,9 +259,10 @@ public abstract class AbstractAutopilot {
      */
     public Position getLastPointOnTrajectory(Status initStatus, 
 	    Position destination, int nbSimulationStep) {
-	Position[] trajectory = getTrajectorySteps(initStatus, destination, 
-		nbSimulationStep);
-	return trajectory[trajectory.length-1];
+	KinematicState state = predictTrajectory(initStatus, 
+		destination.getX(), destination.getY(), nbSimulationStep, 
+		new KinematicState(), null);
+	return new Position(state.x, state.y);
     }
 
     /*********************************************
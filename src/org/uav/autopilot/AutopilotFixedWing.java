@@ -6,7 +6,9 @@ package org.uav.autopilot;
 import org.uav.autopilot.Destination;
 import org.uav.area.AbstractSimulationArea;
 import org.uav.area.RectangularSimulationArea;
+import org.uav.status.Heading;
 import org.uav.status.Position;
+import org.uav.status.Speed;
 import org.uav.status.Status;
 
 /**
@@ -41,13 +43,30 @@ public class AutopilotFixedWing extends AbstractAutopilot {
      * current destination
      */
     protected double getUpdatedHeading(){
+	return getHeadingToDestination(
+		currentStatus.getCurrentPosition().getX(),
+		currentStatus.getCurrentPosition().getY(),
+		currentStatus.getCurrentHeading().getHeadingValue(),
+		currentDestination.getCurrentDestination().getX(),
+		currentDestination.getCurrentDestination().getY());
+    }
+
+    /**
+     * Computes the required angle to go from a position to a destination
+     * @param x the x-axis coordinate of the position
+     * @param y the y-axis coordinate of the position
+     * @param heading the current heading, kept if on the destination
+     * @param destX the x-axis coordinate of the destination
+     * @param destY the y-axis coordinate of the destination
+     * @return the heading to the destination
+     */
+    protected static double getHeadingToDestination(double x, double y, 
+	    double heading, double destX, double destY){
 	// Heading directly to the right direction, no turn rate effect	
-	double yDiff = currentDestination.getCurrentDestination().getY() - 
-		currentStatus.getCurrentPosition().getY();
-	double xDiff = currentDestination.getCurrentDestination().getX() - 
-		currentStatus.getCurrentPosition().getX();
+	double yDiff = destY - y;
+	double xDiff = destX - x;
 
-	double newHeading = currentStatus.getCurrentHeading().getHeadingValue();
+	double newHeading = heading;
 
 	if ( (xDiff == 0) && (yDiff == 0)){
 	    // The UAV is exactly on the destination
@@ -106,6 +125,25 @@ public class AutopilotFixedWing extends AbstractAutopilot {
     }
 
 
+    /**
+     * Same update rules as {@link #doNextMove()} (speed, heading then 
+     * position) applied to a kinematic state. The turning rate has 
+     * no effect on the trajectory and is ignored.
+     */
+    @Override
+    protected void predictNextMove(KinematicState s){
+	s.speed = Speed.getNextSpeed(s.speed, getUpdatedSpeed(), 
+		s.minSpeed, s.maxSpeed, s.maxAccel, s.maxDecel);
+	s.heading = Heading.getNextHeading(s.heading, 
+		getHeadingToDestination(s.x, s.y, s.heading, s.destX, s.destY),
+		s.maxHeadingChange);
+
+	double moveX = Math.cos(s.heading) * s.speed;
+	double moveY = Math.sin(s.heading) * s.speed;
+	s.x = s.x + moveX;
+	s.y = s.y + moveY;
+    }
+
     /*********************************************
      * 
      * Sub-routines to computes points on a
@@ -166,6 +204,30 @@ public class AutopilotFixedWing extends AbstractAutopilot {
 	return new Position (pointX, pointY);
     }
 
+    /**
+     * Same as {@link #getPointWithAngle(double)} for a kinematic state
+     * @param s the kinematic state
+     * @param angle the relative angle of the point
+     * @return the x-axis coordinate of the point
+     */
+    protected double getPointXWithAngle(KinematicState s, double angle){
+	double turningRadius = s.maxSpeed / s.maxHeadingChange;
+	return s.x + Math.cos((s.heading + (angle)) % (2*Math.PI)) * 
+		turningRadius;
+    }
+
+    /**
+     * Same as {@link #getPointWithAngle(double)} for a kinematic state
+     * @param s the kinematic state
+     * @param angle the relative angle of the point
+     * @return the y-axis coordinate of the point
+     */
+    protected double getPointYWithAngle(KinematicState s, double angle){
+	double turningRadius = s.maxSpeed / s.maxHeadingChange;
+	return s.y + Math.sin((s.heading + (angle)) % (2*Math.PI)) * 
+		turningRadius;
+    }
+
     /**
      * Return the point the more on the left in the UAV trajectory
      * @return an instance of {@link Position}
@@ -50,6 +50,26 @@ public class AutopilotFixedWingOutOfSimulationAreaStrategy extends
 		updatePosition();	
 	}
 	
+	/**
+	 * Same strategy as {@link #simpleOutOfAreaStrategy()} applied to a 
+	 * kinematic state: only the predicted destination is changed
+	 */
+	@Override
+	protected void predictNextMove(KinematicState s){
+		if (isOutOfSimulationArea(getPointXWithAngle(s, 0), 
+				getPointYWithAngle(s, 0))){
+			double angle = -Math.PI/2;
+			if (!isOutOfSimulationArea(getPointXWithAngle(s, Math.PI/4), 
+					getPointYWithAngle(s, Math.PI/4)))
+				angle = Math.PI/2;
+			double destX = getPointXWithAngle(s, angle);
+			double destY = getPointYWithAngle(s, angle);
+			s.destX = destX;
+			s.destY = destY;
+		}
+		super.predictNextMove(s);
+	}
+	
 	/**
 	 * A simple check method to determines if the coordinates are
 	 * outside the simulation area. Only works for rectangular shape areas
@@ -1,7 +1,5 @@
 package org.uav.autopilot;
 
-import org.graphstream.graph.Graph;
-import org.graphstream.graph.Node;
 import org.uav.status.Position;
 
 /**
@@ -11,36 +9,64 @@ import org.uav.status.Position;
 public class Destination {
     /** The current destination */
     private Position currentDestination;
-    /** The graph node reprensenting the destination */
-    private Node destinationRepresentation;
-    /** An unique identifier*/
-    private static int id=0;
 
-    public Destination(double x, double y, Graph g){
+    /** When true, the updates are kept aside until applyPendingUpdate() */
+    private boolean deferred;
+    /** The last update kept aside, if any */
+    private boolean hasPendingUpdate;
+    private double pendingX;
+    private double pendingY;
+
+    /**
+     * Constructor
+     * @param x the x-axis coordinate of the destination
+     * @param y the y-axis coordinate of the destination
+     */
+    public Destination(double x, double y){
 	currentDestination = new Position(x,y);
-	destinationRepresentation = g.addNode("d"+id++);
-	destinationRepresentation.setAttribute("x", x);
-	destinationRepresentation.setAttribute("y", y);
-	destinationRepresentation.setAttribute("ui.class", "dest");
     }
 
     public Destination(Destination toCopy) {
 	this.currentDestination = toCopy.currentDestination;
-	this.destinationRepresentation = toCopy.destinationRepresentation;
     }
 
     public void updateDestination(double x, double y){
+	if (deferred){
+	    setPendingUpdate(x, y);
+	    return;
+	}
 	currentDestination.setX(x);
 	currentDestination.setY(y);
-	destinationRepresentation.setAttribute("x", x);
-	destinationRepresentation.setAttribute("y", y);
     }
 
     public void updateDestination(Position p){
+	if (deferred){
+	    setPendingUpdate(p.getX(), p.getY());
+	    return;
+	}
 	currentDestination.setX(p.getX());
 	currentDestination.setY(p.getY());
-	destinationRepresentation.setAttribute("x", p.getX());
-	destinationRepresentation.setAttribute("y", p.getY());
+    }
+
+    /**
+     * Keeps an update aside, the last one wins
+     * @param x the x-axis coordinate of the destination
+     * @param y the y-axis coordinate of the destination
+     */
+    private void setPendingUpdate(double x, double y){
+	hasPendingUpdate = true;
+	pendingX = x;
+	pendingY = y;
+    }
+
+    /**
+     * Applies the update kept aside while deferred, if any
+     */
+    public void applyPendingUpdate(){
+	if (hasPendingUpdate){
+	    hasPendingUpdate = false;
+	    setCurrentDestination(new Position(pendingX, pendingY));
+	}
     }
 
     /**
@@ -53,23 +79,26 @@ public class Destination {
      * @param currentDestination the currentDestination to set
      */
     public void setCurrentDestination(Position currentDestination) {
+	if (deferred){
+	    setPendingUpdate(currentDestination.getX(), currentDestination.getY());
+	    return;
+	}
 	this.currentDestination = currentDestination;
-	this.getDestinationRepresentation().setAttribute("x", 
-		currentDestination.getX());
-	this.getDestinationRepresentation().setAttribute("y", 
-		currentDestination.getY());
     }
     /**
-     * @return the destinationRepresentation
+     * @return true if the updates are currently kept aside
      */
-    public Node getDestinationRepresentation() {
-	return destinationRepresentation;
+    public boolean isDeferred() {
+	return deferred;
     }
     /**
-     * @param destinationRepresentation the destinationRepresentation to set
+     * While deferred, the destination is not modified by the updates, 
+     * the last one being applied by {@link #applyPendingUpdate()}. This
+     * lets other UAVs read the destination of the beginning of a step.
+     * @param deferred the deferred to set
      */
-    public void setDestinationRepresentation(Node destinationRepresentation) {
-	this.destinationRepresentation = destinationRepresentation;
+    public void setDeferred(boolean deferred) {
+	this.deferred = deferred;
     }
 
 
@@ -0,0 +1,98 @@
+package org.uav.autopilot;
+
+import org.uav.status.Status;
+
+/**
+ * @author Julien Schleich
+ * A primitive copy of the values of a {@link Status} and of a destination,
+ * used as scratch state by the autopilots to predict a trajectory without
+ * modifying the UAV nor allocating positions at each step.
+ * An instance belongs to the caller of the prediction and can be reused
+ * for as many predictions as needed.
+ */
+public class KinematicState {
+    /** The position */
+    protected double x;
+    protected double y;
+    /** The heading (in rad) and its maximum change per timestep */
+    protected double heading;
+    protected double maxHeadingChange;
+    /** The speed and its limits */
+    protected double speed;
+    protected double minSpeed;
+    protected double maxSpeed;
+    protected double maxAccel;
+    protected double maxDecel;
+    /** The destination */
+    protected double destX;
+    protected double destY;
+
+    /**
+     * Copies the values of a status and of a destination
+     * @param s the status to start from
+     * @param destX the x-axis coordinate of the destination
+     * @param destY the y-axis coordinate of the destination
+     */
+    public void load(Status s, double destX, double destY){
+	this.x = s.getPositionX();
+	this.y = s.getPositionY();
+	this.heading = s.getHeadingValue();
+	this.maxHeadingChange = s.getCurrentHeading().getMaxHeadingChange();
+	this.speed = s.getSpeedValue();
+	this.minSpeed = s.getCurrentSpeed().getMinSpeed();
+	this.maxSpeed = s.getCurrentSpeed().getMaxSpeed();
+	this.maxAccel = s.getCurrentSpeed().getMaxAccel();
+	this.maxDecel = s.getCurrentSpeed().getMaxDecel();
+	this.destX = destX;
+	this.destY = destY;
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the x-axis coordinate of the position
+     */
+    public double getX() {
+	return x;
+    }
+
+    /**
+     * @return the y-axis coordinate of the position
+     */
+    public double getY() {
+	return y;
+    }
+
+    /**
+     * @return the heading
+     */
+    public double getHeading() {
+	return heading;
+    }
+
+    /**
+     * @return the speed
+     */
+    public double getSpeed() {
+	return speed;
+    }
+
+    /**
+     * @return the x-axis coordinate of the destination
+     */
+    public double getDestX() {
+	return destX;
+    }
+
+    /**
+     * @return the y-axis coordinate of the destination
+     */
+    public double getDestY() {
+	return destY;
+    }
+
+}
@@ -0,0 +1,149 @@
+package org.uav.autopilot;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.uav.status.Position;
+import org.uav.status.Status;
+
+/**
+ * @author Julien Schleich
+ * A cache of the last point of the predicted trajectory of each UAV,
+ * shared by all the UAVs of a simulation. When several UAVs consider the
+ * same neighbor, its trajectory is only simulated once.
+ * An entry is keyed by the UAV id, the horizon and the destination, and is
+ * only valid as long as the status it was computed from is unchanged, so
+ * a UAV which moved or changed its destination is predicted again.
+ * Entries can be read and written concurrently by several UAVs.
+ */
+public class TrajectoryPredictionCache {
+
+    /**
+     * @author Julien Schleich
+     * The cached prediction of one UAV
+     */
+    protected static class Entry {
+	/** False until a first prediction is stored */
+	protected boolean valid;
+	/** The prediction inputs */
+	protected int horizon;
+	protected double x;
+	protected double y;
+	protected double heading;
+	protected double speed;
+	protected double destX;
+	protected double destY;
+	/** The last point of the trajectory */
+	protected double lastX;
+	protected double lastY;
+    }
+
+    /** The entries, indexed by UAV id */
+    protected Entry[] entries;
+
+    /** Statistics about the cache use */
+    protected AtomicLong nbHits = new AtomicLong();
+    protected AtomicLong nbMisses = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param nbUAV the number of UAVs, ids being between 0 and nbUAV-1
+     */
+    public TrajectoryPredictionCache(int nbUAV) {
+	this.entries = new Entry[nbUAV];
+	for (int i = 0; i < nbUAV; i++)
+	    this.entries[i] = new Entry();
+    }
+
+    /**
+     * Predicts the last point of the trajectory of a UAV going to its
+     * current destination, reusing the cached value when the UAV did not
+     * change since it was computed.
+     * @param uavId the id of the UAV
+     * @param auto the autopilot of the UAV
+     * @param nbSimulationStep the number of simulation steps
+     * @param state a scratch state of the caller, holding the last point
+     * at the end (only its position is meaningful on a cache hit)
+     * @return the state
+     */
+    public KinematicState predictTrajectory(int uavId, AbstractAutopilot auto,
+	    int nbSimulationStep, KinematicState state){
+	Status s = auto.getCurrentStatus();
+	Position dest = auto.getCurrentDestination().getCurrentDestination();
+	double x = s.getPositionX();
+	double y = s.getPositionY();
+	double heading = s.getHeadingValue();
+	double speed = s.getSpeedValue();
+	double destX = dest.getX();
+	double destY = dest.getY();
+
+	Entry e = entries[uavId];
+	synchronized (e) {
+	    if (e.valid && (e.horizon == nbSimulationStep)
+		    && (e.x == x) && (e.y == y)
+		    && (e.heading == heading) && (e.speed == speed)
+		    && (e.destX == destX) && (e.destY == destY)){
+		nbHits.incrementAndGet();
+		state.x = e.lastX;
+		state.y = e.lastY;
+		return state;
+	    }
+	}
+
+	auto.predictTrajectory(destX, destY, nbSimulationStep, state);
+
+	nbMisses.incrementAndGet();
+	synchronized (e) {
+	    e.valid = true;
+	    e.horizon = nbSimulationStep;
+	    e.x = x;
+	    e.y = y;
+	    e.heading = heading;
+	    e.speed = speed;
+	    e.destX = destX;
+	    e.destY = destY;
+	    e.lastX = state.x;
+	    e.lastY = state.y;
+	}
+	return state;
+    }
+
+    /**
+     * Forgets the prediction of a UAV
+     * @param uavId the id of the UAV
+     */
+    public void invalidate(int uavId){
+	Entry e = entries[uavId];
+	synchronized (e) {
+	    e.valid = false;
+	}
+    }
+
+    /**
+     * Forgets every prediction
+     */
+    public void clear(){
+	for (int i = 0; i < entries.length; i++)
+	    invalidate(i);
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the number of predictions answered by the cache
+     */
+    public long getNbHits() {
+	return nbHits.get();
+    }
+
+    /**
+     * @return the number of predictions actually computed
+     */
+    public long getNbMisses() {
+	return nbMisses.get();
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.uav.graph;
+
+/**
+ * @author Julien Schleich
+ * An abstract class to follow the link changes of a {@link UAVGraph}, 
+ * e.g. to mirror them on a display. The graph calls it once a link has 
+ * been added or removed.
+ */
+public abstract class AbstractUAVGraphObserver {
+
+    /**
+     * Called once a link has been added
+     * @param id1 the identifier of the first UAV, UAVGraph.BASE for the base
+     * @param id2 the identifier of the second UAV, UAVGraph.BASE for the base
+     */
+    public abstract void linkAdded(int id1, int id2);
+
+    /**
+     * Called once a link has been removed
+     * @param id1 the identifier of the first UAV, UAVGraph.BASE for the base
+     * @param id2 the identifier of the second UAV, UAVGraph.BASE for the base
+     */
+    public abstract void linkRemoved(int id1, int id2);
+
+}
@@ -0,0 +1,234 @@
+package org.uav.graph;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.graphstream.stream.file.FileSinkImages;
+import org.graphstream.ui.geom.Point3;
+
+/**
+ * @author Julien Schleich
+ * A {@link FileSinkImages} which only renders the images on the calling 
+ * thread: the pixels of each image are copied and the files are encoded 
+ * by a pool of threads. The pool has a bounded queue, once it is full 
+ * the calling thread encodes the image itself, so that the memory used 
+ * stays bounded and no image is lost. Besides PNG, the images can be 
+ * written with a faster codec (BMP or JPG) or as raw frames of 24 bits 
+ * RGB pixels, e.g. to be assembled into a video with
+ * cat prefix*.rgb | ffmpeg -f rawvideo -pix_fmt rgb24 -s 1280x720 -i - 
+ */
+public class AsyncFileSinkImages extends FileSinkImages {
+
+    /**
+     * The formats of the files written
+     */
+    public static enum Format {
+	PNG("png"), JPG("jpg"), BMP("bmp"), RAW("rgb");
+
+	/** The extension of the files, also the ImageIO format name */
+	protected final String ext;
+
+	private Format(String ext) {
+	    this.ext = ext;
+	}
+
+	/**
+	 * @return the extension of the files
+	 */
+	public String getExt() {
+	    return ext;
+	}
+    }
+
+    /** The format of the files */
+    protected Format format;
+    /** The encoding threads */
+    protected ExecutorService pool;
+    /** The first failure of an encoding, thrown at the end */
+    protected volatile IOException failure;
+
+    /**
+     * Constructor
+     * @param prefix the prefix of the files
+     * @param format the format of the files
+     * @param resolution the resolution of the images
+     * @param nbThreads the number of encoding threads
+     * @param queueSize the number of images waiting to be encoded
+     */
+    public AsyncFileSinkImages(String prefix, Format format, 
+	    Resolution resolution, int nbThreads, int queueSize) {
+	super(prefix, (format == Format.PNG) ? OutputType.PNG : OutputType.JPG,
+		resolution, OutputPolicy.NONE);
+	this.format = format;
+	this.pool = new ThreadPoolExecutor(nbThreads, nbThreads, 
+		0L, TimeUnit.MILLISECONDS, 
+		new ArrayBlockingQueue<Runnable>(queueSize),
+		new ThreadFactory() {
+		    public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "uav-screenshots");
+			t.setDaemon(true);
+			return t;
+		    }
+		}, 
+		new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Renders a new image and gives it to the encoding threads
+     */
+    @Override
+    public synchronized void outputNewImage() {
+	final String fileName = String.format("%s%06d.%s", filePrefix, 
+		counter++, format.getExt());
+	render();
+	final int width = image.getWidth();
+	final int height = image.getHeight();
+	final int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+	pool.execute(new Runnable() {
+	    public void run() {
+		try {
+		    encode(pixels, width, height, new File(fileName));
+		} catch (IOException e) {
+		    fail(e);
+		} catch (RuntimeException e) {
+		    /** e.g. from an ImageIO writer, which would be lost */
+		    fail(new IOException("Cannot write "+fileName, e));
+		}
+	    }
+	});
+    }
+
+    /**
+     * Keeps the first failure of an encoding, to be thrown at the end
+     * @param e the failure
+     */
+    protected synchronized void fail(IOException e){
+	if (failure == null)
+	    failure = e;
+    }
+
+    /**
+     * Renders the graph into the image, as the synchronous sink does
+     * before writing it
+     */
+    protected void render(){
+	switch (layoutPolicy) {
+	case COMPUTED_IN_LAYOUT_RUNNER:
+	    layoutPipeIn.pump();
+	    break;
+	case COMPUTED_ONCE_AT_NEW_IMAGE:
+	    if (layout != null)
+		layout.compute();
+	    break;
+	case COMPUTED_FULLY_AT_NEW_IMAGE:
+	    stabilizeLayout(layout.getStabilizationLimit());
+	    break;
+	default:
+	    break;
+	}
+
+	if ((resolution.getWidth() != image.getWidth()) || 
+		(resolution.getHeight() != image.getHeight()))
+	    initImage();
+	if (clearImageBeforeOutput)
+	    for (int x=0; x<resolution.getWidth(); x++)
+		for (int y=0; y<resolution.getHeight(); y++)
+		    image.setRGB(x, y, 0);
+
+	if (gg.getNodeCount() > 0){
+	    if (autofit){
+		gg.computeBounds();
+		Point3 lo = gg.getMinPos();
+		Point3 hi = gg.getMaxPos();
+		renderer.getCamera().setBounds(lo.x, lo.y, lo.z, 
+			hi.x, hi.y, hi.z);
+	    }
+	    renderer.render(g2d, 0, 0, resolution.getWidth(), 
+		    resolution.getHeight());
+	}
+	for (PostRenderer r : postRenderers)
+	    r.render(g2d);
+	image.flush();
+    }
+
+    /**
+     * Writes an image, on an encoding thread
+     * @param pixels the ARGB pixels of the image, row by row
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    protected void encode(int[] pixels, int width, int height, File file) 
+	    throws IOException {
+	if ((file.getParentFile() != null) && !file.getParentFile().exists())
+	    file.getParentFile().mkdirs();
+
+	if (format == Format.RAW){
+	    byte[] rgb = new byte[3 * pixels.length];
+	    for (int i=0; i<pixels.length; i++){
+		rgb[3*i] = (byte)(pixels[i] >> 16);
+		rgb[3*i+1] = (byte)(pixels[i] >> 8);
+		rgb[3*i+2] = (byte)pixels[i];
+	    }
+	    OutputStream out = new BufferedOutputStream(
+		    new FileOutputStream(file));
+	    try {
+		out.write(rgb);
+	    } finally {
+		out.close();
+	    }
+	    return;
+	}
+
+	/** Only PNG keeps the transparency */
+	BufferedImage img = new BufferedImage(width, height, 
+		(format == Format.PNG) ? 
+			BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+	img.setRGB(0, 0, width, height, pixels, 0, width);
+	if (!ImageIO.write(img, format.getExt(), file))
+	    throw new IOException("No writer for the format "+format);
+    }
+
+    /**
+     * Waits for the images to be written
+     * @throws IOException if one of them could not be written
+     */
+    @Override
+    public void end() throws IOException {
+	super.end();
+	pool.shutdown();
+	try {
+	    while (!pool.awaitTermination(1, TimeUnit.SECONDS));
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+	if (failure != null)
+	    throw failure;
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the format
+     */
+    public Format getFormat() {
+	return format;
+    }
+
+}
@@ -0,0 +1,405 @@
+package org.uav.graph;
+
+import java.util.Arrays;
+
+/**
+ * @author Julien Schleich
+ * The connected components of a {@link UAVGraph}, kept up to date from
+ * its link additions and removals instead of being computed at each query.
+ * Each node holds the label of its component, and a spanning forest of the
+ * links is kept along. An added link between two components relabels the
+ * smaller one, walking its tree, and joins the two trees. A removed link
+ * outside the forest changes nothing; a removed link of the forest splits
+ * a tree in two sides, which are walked at the same pace until the
+ * smaller one is complete. A link from the smaller side to the other one
+ * then replaces the removed link in the forest, or else the smaller side
+ * becomes a new component. The cost of a change is therefore bounded by
+ * the smaller part involved, and a query never walks the graph.
+ */
+public class ConnectedComponentsTracker {
+
+    /** The label of a node out of the graph */
+    protected static final int NONE = -1;
+
+    /** The graph */
+    protected UAVGraph graph;
+
+    /** The component label of each node */
+    protected int[] labels;
+    /** The number of nodes of each component, by label */
+    protected int[] sizes;
+    /** The labels not used by a component */
+    protected int[] freeLabels;
+    /** The number of labels not used */
+    protected int nbFreeLabels;
+    /** The number of components of each size */
+    protected int[] nbComponentsBySize;
+
+    /** The neighbours of each node in the spanning forest */
+    protected int[][] forest;
+    /** The number of neighbours of each node in the spanning forest */
+    protected int[] forestDegrees;
+
+    /** The walks of the two sides of a removed link, with their marks */
+    protected int[] queue1;
+    protected int[] queue2;
+    protected int[] marks1;
+    protected int[] marks2;
+    /** The number of walks done, marking the nodes of the current one */
+    protected int stamp;
+
+    /** The number of components */
+    protected int nbComponents;
+    /** The number of nodes of the biggest component */
+    protected int giantComponentSize;
+
+    /**
+     * Constructor, the components are built from the current links
+     * @param graph the graph
+     */
+    public ConnectedComponentsTracker(UAVGraph graph) {
+	this.graph = graph;
+	this.labels = new int[0];
+	this.sizes = new int[0];
+	this.freeLabels = new int[0];
+	this.nbComponentsBySize = new int[1];
+	this.forest = new int[0][];
+	this.forestDegrees = new int[0];
+	this.queue1 = new int[0];
+	this.queue2 = new int[0];
+	this.marks1 = new int[0];
+	this.marks2 = new int[0];
+	rebuild();
+    }
+
+    /**
+     * Computes the components again from every link of the graph, with a
+     * breadth first search whose tree is the spanning forest
+     */
+    public void rebuild(){
+	int nbNodes = graph.neighbours.length;
+	ensureCapacity(nbNodes);
+	Arrays.fill(labels, NONE);
+	Arrays.fill(forestDegrees, 0);
+	Arrays.fill(nbComponentsBySize, 0);
+	nbFreeLabels = 0;
+	for (int l = labels.length - 1; l >= 0; l--)
+	    freeLabels[nbFreeLabels++] = l;
+	nbComponents = 0;
+	giantComponentSize = 0;
+	for (int n = 0; n < nbNodes; n++){
+	    if ((labels[n] != NONE) || !isInGraph(n))
+		continue;
+	    int label = newLabel();
+	    labels[n] = label;
+	    queue1[0] = n;
+	    int tail = 1;
+	    for (int head = 0; head < tail; head++){
+		int m = queue1[head];
+		for (int k = 0; k < graph.degrees[m]; k++){
+		    int o = graph.neighbours[m][k];
+		    if (labels[o] == NONE){
+			labels[o] = label;
+			addToForest(m, o);
+			addToForest(o, m);
+			queue1[tail++] = o;
+		    }
+		}
+	    }
+	    sizes[label] = tail;
+	    componentAdded(tail);
+	}
+    }
+
+    /**
+     * To be called once a node is added to the graph, without any link
+     * @param n the node
+     */
+    public void nodeAdded(int n){
+	ensureCapacity(graph.neighbours.length);
+	int label = newLabel();
+	labels[n] = label;
+	sizes[label] = 1;
+	forestDegrees[n] = 0;
+	componentAdded(1);
+    }
+
+    /**
+     * To be called once a node is removed from the graph, its links being
+     * removed before
+     * @param n the node
+     */
+    public void nodeRemoved(int n){
+	int label = labels[n];
+	if (label == NONE)
+	    return;
+	componentRemoved(sizes[label]);
+	freeLabels[nbFreeLabels++] = label;
+	labels[n] = NONE;
+    }
+
+    /**
+     * To be called once a link is added to the graph
+     * @param n1 the first end of the link
+     * @param n2 the second end of the link
+     */
+    public void edgeAdded(int n1, int n2){
+	int l1 = labels[n1];
+	int l2 = labels[n2];
+	if (l1 == l2)
+	    return;
+	/** The smaller component takes the label of the bigger one */
+	if (sizes[l1] < sizes[l2]){
+	    int tmp = n1;
+	    n1 = n2;
+	    n2 = tmp;
+	    tmp = l1;
+	    l1 = l2;
+	    l2 = tmp;
+	}
+	componentRemoved(sizes[l1]);
+	componentRemoved(sizes[l2]);
+	relabel(n2, l1);
+	sizes[l1] += sizes[l2];
+	componentAdded(sizes[l1]);
+	freeLabels[nbFreeLabels++] = l2;
+	addToForest(n1, n2);
+	addToForest(n2, n1);
+    }
+
+    /**
+     * To be called once a link is removed from the graph
+     * @param n1 the first end of the link
+     * @param n2 the second end of the link
+     */
+    public void edgeRemoved(int n1, int n2){
+	if (!removeFromForest(n1, n2))
+	    return;
+	removeFromForest(n2, n1);
+
+	/** Walking the two sides until the smaller one is complete */
+	nextStamp();
+	marks1[n1] = stamp;
+	marks2[n2] = stamp;
+	queue1[0] = n1;
+	queue2[0] = n2;
+	int head1 = 0;
+	int tail1 = 1;
+	int head2 = 0;
+	int tail2 = 1;
+	while ((head1 < tail1) && (head2 < tail2)){
+	    tail1 = expand(queue1[head1++], queue1, tail1, marks1);
+	    tail2 = expand(queue2[head2++], queue2, tail2, marks2);
+	}
+	int[] side = queue1;
+	int[] marks = marks1;
+	int size = tail1;
+	if (head1 < tail1){
+	    side = queue2;
+	    marks = marks2;
+	    size = tail2;
+	}
+
+	/** A link from the smaller side to the other one replaces it */
+	for (int i = 0; i < size; i++){
+	    int m = side[i];
+	    for (int k = 0; k < graph.degrees[m]; k++){
+		int o = graph.neighbours[m][k];
+		if (marks[o] != stamp){
+		    addToForest(m, o);
+		    addToForest(o, m);
+		    return;
+		}
+	    }
+	}
+
+	/** Otherwise the smaller side is a new component */
+	int label = labels[n1];
+	int newLabel = newLabel();
+	for (int i = 0; i < size; i++)
+	    labels[side[i]] = newLabel;
+	componentRemoved(sizes[label]);
+	sizes[label] -= size;
+	sizes[newLabel] = size;
+	componentAdded(sizes[label]);
+	componentAdded(size);
+    }
+
+    /**
+     * Adds to a walk the neighbours of a node in the spanning forest
+     * @param n the node
+     * @param queue the nodes of the walk
+     * @param tail the number of nodes of the walk
+     * @param marks the marks of the walk
+     * @return the new number of nodes of the walk
+     */
+    protected int expand(int n, int[] queue, int tail, int[] marks){
+	for (int k = 0; k < forestDegrees[n]; k++){
+	    int o = forest[n][k];
+	    if (marks[o] != stamp){
+		marks[o] = stamp;
+		queue[tail++] = o;
+	    }
+	}
+	return tail;
+    }
+
+    /**
+     * Gives a label to every node of a tree of the spanning forest
+     * @param n a node of the tree
+     * @param label the label
+     */
+    protected void relabel(int n, int label){
+	nextStamp();
+	marks1[n] = stamp;
+	queue1[0] = n;
+	int tail = 1;
+	for (int head = 0; head < tail; head++){
+	    labels[queue1[head]] = label;
+	    tail = expand(queue1[head], queue1, tail, marks1);
+	}
+    }
+
+    /**
+     * @return a label not used by a component
+     */
+    protected int newLabel(){
+	return freeLabels[--nbFreeLabels];
+    }
+
+    /**
+     * Counts a new component
+     * @param size its number of nodes
+     */
+    protected void componentAdded(int size){
+	nbComponents++;
+	nbComponentsBySize[size]++;
+	if (size > giantComponentSize)
+	    giantComponentSize = size;
+    }
+
+    /**
+     * Forgets a component
+     * @param size its number of nodes
+     */
+    protected void componentRemoved(int size){
+	nbComponents--;
+	nbComponentsBySize[size]--;
+	while ((giantComponentSize > 0) &&
+		(nbComponentsBySize[giantComponentSize] == 0))
+	    giantComponentSize--;
+    }
+
+    /**
+     * @param n a node
+     * @param neighbour its new neighbour in the spanning forest
+     */
+    protected void addToForest(int n, int neighbour){
+	if (forest[n] == null)
+	    forest[n] = new int[4];
+	else if (forestDegrees[n] == forest[n].length)
+	    forest[n] = Arrays.copyOf(forest[n], 2 * forestDegrees[n]);
+	forest[n][forestDegrees[n]++] = neighbour;
+    }
+
+    /**
+     * @param n a node
+     * @param neighbour a neighbour to remove from the spanning forest
+     * @return false if it was not a neighbour in the spanning forest
+     */
+    protected boolean removeFromForest(int n, int neighbour){
+	for (int k = 0; k < forestDegrees[n]; k++){
+	    if (forest[n][k] == neighbour){
+		forestDegrees[n]--;
+		forest[n][k] = forest[n][forestDegrees[n]];
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * @param n a node
+     * @return true if it is the base or the node of a UAV of the graph
+     */
+    protected boolean isInGraph(int n){
+	return (n == 0) || (graph.getUAV(n - 1) != null);
+    }
+
+    /**
+     * Starts a new walk, no node is marked any more
+     */
+    protected void nextStamp(){
+	stamp++;
+	if (stamp == 0){
+	    Arrays.fill(marks1, 0);
+	    Arrays.fill(marks2, 0);
+	    stamp = 1;
+	}
+    }
+
+    /**
+     * @param nbNodes the number of nodes to hold
+     */
+    protected void ensureCapacity(int nbNodes){
+	if (labels.length >= nbNodes)
+	    return;
+	int old = labels.length;
+	int capacity = Math.max(nbNodes, 2 * old);
+	labels = Arrays.copyOf(labels, capacity);
+	Arrays.fill(labels, old, capacity, NONE);
+	sizes = Arrays.copyOf(sizes, capacity);
+	nbComponentsBySize = Arrays.copyOf(nbComponentsBySize, capacity + 1);
+	forest = Arrays.copyOf(forest, capacity);
+	forestDegrees = Arrays.copyOf(forestDegrees, capacity);
+	queue1 = new int[capacity];
+	queue2 = new int[capacity];
+	marks1 = Arrays.copyOf(marks1, capacity);
+	marks2 = Arrays.copyOf(marks2, capacity);
+	/** The new labels are free, the smallest given first */
+	freeLabels = Arrays.copyOf(freeLabels, capacity);
+	System.arraycopy(freeLabels, 0, freeLabels, capacity - old,
+		nbFreeLabels);
+	for (int l = 0; l < capacity - old; l++)
+	    freeLabels[l] = capacity - 1 - l;
+	nbFreeLabels += capacity - old;
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the number of connected components
+     */
+    public int getNbComponents() {
+	return nbComponents;
+    }
+
+    /**
+     * @return the number of nodes of the biggest connected component
+     */
+    public int getGiantComponentSize() {
+	return giantComponentSize;
+    }
+
+    /**
+     * @return the number of nodes of the component of the base station,
+     * the base included
+     */
+    public int getBaseComponentSize() {
+	return sizes[labels[0]];
+    }
+
+    /**
+     * @param id1 the identifier of a UAV, UAVGraph.BASE for the base
+     * @param id2 the identifier of a UAV, UAVGraph.BASE for the base
+     * @return true if the two are in the same component
+     */
+    public boolean areConnected(int id1, int id2) {
+	return (labels[id1 + 1] != NONE) && (labels[id1 + 1] == labels[id2 + 1]);
+    }
+
+}
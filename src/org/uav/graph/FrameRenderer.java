@@ -0,0 +1,286 @@
+package org.uav.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.uav.AbstractUAV;
+import org.uav.area.RectangularSimulationArea;
+import org.uav.status.Position;
+import org.uav.status.Status;
+
+/**
+ * @author Julien Schleich
+ * Shows the simulation on its own thread, so that the display neither 
+ * slows the simulation nor is written by it concurrently. The simulation
+ * thread offers a {@link FrameSnapshot} at each timestep; one is taken 
+ * at most at the frame rate and only if the previous one is already being
+ * shown, otherwise the frame is dropped. The renderer thread then applies
+ * the frames to the graph through a {@link GraphStreamObserver}: the UAVs,
+ * the links which changed and the grid cells whose level changed.
+ * A frame which fails to be shown is reported and skipped, the renderer
+ * thread going on with the next one.
+ */
+public class FrameRenderer {
+
+    /** The longest wait for the renderer, in milliseconds */
+    public static final long TIMEOUT = 10000;
+
+    /** Mirrors the frames on the main graph */
+    protected GraphStreamObserver observer;
+    /** The simulation area, whose grid nodes show the pheromone levels */
+    protected RectangularSimulationArea area;
+    /** The minimum time between two frames in nanoseconds, 0 for none */
+    protected long framePeriod;
+    /** The earliest time of the next frame */
+    protected long nextFrame;
+    /** The frame waiting to be shown */
+    protected BlockingQueue<FrameSnapshot> frames;
+    /** The renderer thread */
+    protected Thread thread;
+
+    /** The links of the last frame shown */
+    protected int[] shownLinks;
+    /** Scratch arrays used when taking a frame */
+    protected int[] links;
+    protected int[] changedCells;
+    protected double[] changedLevels;
+
+    /** The number of frames shown */
+    protected volatile int nbRendered;
+    /** The number of frames dropped because the renderer was busy */
+    protected int nbDropped;
+    /** The number of frames which failed to be shown */
+    protected volatile int nbFailed;
+
+    /**
+     * Constructor
+     * @param observer mirrors the frames on the main graph
+     * @param area the simulation area, its environment already generated
+     * @param fps the maximum number of frames per second, 0 for no limit
+     */
+    public FrameRenderer(GraphStreamObserver observer, 
+	    RectangularSimulationArea area, int fps) {
+	this.observer = observer;
+	this.area = area;
+	this.framePeriod = (fps > 0) ? 1000000000L / fps : 0;
+	this.frames = new ArrayBlockingQueue<FrameSnapshot>(1);
+	this.shownLinks = new int[0];
+	this.links = new int[16];
+	int nbCells = area.getPheromoneField().getNbCells();
+	this.changedCells = new int[nbCells];
+	this.changedLevels = new double[nbCells];
+    }
+
+    /**
+     * Starts the renderer thread, once the UAVs are represented
+     */
+    public void start(){
+	thread = new Thread(new Runnable() {
+	    public void run() {
+		try {
+		    while (true)
+			safeRender(frames.take());
+		} catch (InterruptedException e) {
+		    /** Shutting down, the last frame is shown anyway */
+		    FrameSnapshot last = frames.poll();
+		    if (last != null)
+			safeRender(last);
+		}
+	    }
+	}, "uav-display");
+	thread.setDaemon(true);
+	thread.start();
+    }
+
+    /**
+     * Offers the current timestep to the renderer, a frame is taken if 
+     * it is time for one and the renderer is ready
+     * @param step the timestep
+     * @param u the UAVs
+     * @param nbUAV the number of UAVs
+     * @param graph the UAV graph
+     * @return true if a frame was taken
+     */
+    public boolean offer(int step, AbstractUAV[] u, int nbUAV, UAVGraph graph){
+	long now = System.nanoTime();
+	if ((framePeriod > 0) && (now - nextFrame < 0))
+	    return false;
+	if (!frames.isEmpty()){
+	    nbDropped++;
+	    return false;
+	}
+	nextFrame = now + framePeriod;
+	frames.offer(capture(step, u, nbUAV, graph));
+	return true;
+    }
+
+    /**
+     * Takes a frame whatever the frame rate, waiting for the renderer to
+     * be ready, e.g. to show the last timestep. The frame is dropped if 
+     * the renderer thread is not running or not ready within TIMEOUT.
+     * @param step the timestep
+     * @param u the UAVs
+     * @param nbUAV the number of UAVs
+     * @param graph the UAV graph
+     * @return true if the frame was taken
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean flush(int step, AbstractUAV[] u, int nbUAV, UAVGraph graph)
+	    throws InterruptedException {
+	nextFrame = System.nanoTime() + framePeriod;
+	FrameSnapshot frame = capture(step, u, nbUAV, graph);
+	long deadline = System.currentTimeMillis() + TIMEOUT;
+	while (!frames.offer(frame, 100, TimeUnit.MILLISECONDS)){
+	    if ((thread == null) || !thread.isAlive() || 
+		    (System.currentTimeMillis() > deadline)){
+		System.out.println("The display is not running, the frame "+
+			"of timestep "+step+" is not shown");
+		nbDropped++;
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Takes a frame of the simulation
+     * @param step the timestep
+     * @param u the UAVs
+     * @param nbUAV the number of UAVs
+     * @param graph the UAV graph
+     * @return the frame
+     */
+    protected FrameSnapshot capture(int step, AbstractUAV[] u, int nbUAV, 
+	    UAVGraph graph){
+	double[] x = new double[nbUAV];
+	double[] y = new double[nbUAV];
+	double[] heading = new double[nbUAV];
+	double[] destX = new double[nbUAV];
+	double[] destY = new double[nbUAV];
+	for (int i=0; i<nbUAV; i++){
+	    Status s = u[i].getAuto().getCurrentStatus();
+	    x[i] = s.getPositionX();
+	    y[i] = s.getPositionY();
+	    heading[i] = s.getHeadingValue();
+	    Position dest = u[i].getAuto().getCurrentDestination()
+		    .getCurrentDestination();
+	    destX[i] = dest.getX();
+	    destY[i] = dest.getY();
+	}
+
+	/** Each link is taken from its end with the smaller identifier */
+	int nbLinks = 0;
+	for (int i=UAVGraph.BASE; i<nbUAV; i++){
+	    for (int k=0; k<graph.getDegree(i); k++){
+		int j = graph.getNeighbour(i, k);
+		if (i < j){
+		    if (nbLinks == links.length)
+			links = Arrays.copyOf(links, 2 * nbLinks);
+		    links[nbLinks++] = FrameSnapshot.getLinkKey(i, j, nbUAV);
+		}
+	    }
+	}
+	int[] sortedLinks = Arrays.copyOf(links, nbLinks);
+	Arrays.sort(sortedLinks);
+
+	int nbChanged = area.collectChangedCells(changedCells, changedLevels);
+	return new FrameSnapshot(step, nbUAV, x, y, heading, destX, destY,
+		sortedLinks, Arrays.copyOf(changedCells, nbChanged), 
+		Arrays.copyOf(changedLevels, nbChanged));
+    }
+
+    /**
+     * Shows a frame, reporting its failure instead of stopping the 
+     * renderer thread
+     * @param f the frame
+     */
+    protected void safeRender(FrameSnapshot f){
+	try {
+	    render(f);
+	} catch (RuntimeException e) {
+	    nbFailed++;
+	    System.out.println("An error occured when attempting to show the "+
+		    "frame of timestep "+f.getStep());
+	    e.printStackTrace();
+	}
+    }
+
+    /**
+     * Shows a frame, on the renderer thread
+     * @param f the frame
+     */
+    protected void render(FrameSnapshot f){
+	observer.refresh(f);
+
+	/** Merging with the links shown to get the differences */
+	int nbUAV = f.getNbUAV();
+	int o = 0, n = 0;
+	while ((o < shownLinks.length) || (n < f.getNbLinks())){
+	    if ((n == f.getNbLinks()) || 
+		    ((o < shownLinks.length) && (shownLinks[o] < f.getLink(n)))){
+		int key = shownLinks[o++];
+		observer.linkRemoved(FrameSnapshot.getLinkFirst(key, nbUAV),
+			FrameSnapshot.getLinkSecond(key, nbUAV));
+	    }
+	    else if ((o == shownLinks.length) || (f.getLink(n) < shownLinks[o])){
+		int key = f.getLink(n++);
+		observer.linkAdded(FrameSnapshot.getLinkFirst(key, nbUAV),
+			FrameSnapshot.getLinkSecond(key, nbUAV));
+	    }
+	    else {
+		o++;
+		n++;
+	    }
+	}
+	shownLinks = f.links;
+
+	for (int i=0; i<f.getNbCells(); i++)
+	    area.refreshCell(f.getCell(i), f.getLevel(i));
+	nbRendered++;
+    }
+
+    /**
+     * Stops the renderer thread once the waiting frame is shown, waiting 
+     * for it TIMEOUT at most
+     * @throws InterruptedException if interrupted while waiting for it
+     */
+    public void shutdown() throws InterruptedException {
+	if (thread != null){
+	    thread.interrupt();
+	    thread.join(TIMEOUT);
+	    if (thread.isAlive())
+		System.out.println("The display did not stop in time");
+	    thread = null;
+	}
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the number of frames shown
+     */
+    public int getNbRendered() {
+	return nbRendered;
+    }
+
+    /**
+     * @return the number of frames dropped because the renderer was busy
+     */
+    public int getNbDropped() {
+	return nbDropped;
+    }
+
+    /**
+     * @return the number of frames which failed to be shown
+     */
+    public int getNbFailed() {
+	return nbFailed;
+    }
+
+}
@@ -0,0 +1,186 @@
+package org.uav.graph;
+
+/**
+ * @author Julien Schleich
+ * An immutable picture of the simulation at one timestep, as needed to 
+ * show it: the pose and destination of each UAV, the links of the 
+ * {@link UAVGraph} and the grid cells whose pheromone level changed since
+ * the previous frame. It is built by the simulation thread and shown by 
+ * a {@link FrameRenderer}.
+ */
+public class FrameSnapshot {
+
+    /** The timestep */
+    protected final int step;
+    /** The number of UAVs */
+    protected final int nbUAV;
+    /** The position and heading of each UAV */
+    protected final double[] x;
+    protected final double[] y;
+    protected final double[] heading;
+    /** The destination of each UAV */
+    protected final double[] destX;
+    protected final double[] destY;
+    /** The links, sorted, see {@link #getLinkKey(int, int, int)} */
+    protected final int[] links;
+    /** The grid cells whose level changed, and their new level */
+    protected final int[] cells;
+    protected final double[] levels;
+
+    /**
+     * Constructor, the arrays are kept and must not be modified afterwards
+     * @param step the timestep
+     * @param nbUAV the number of UAVs
+     * @param x the x-axis coordinate of each UAV
+     * @param y the y-axis coordinate of each UAV
+     * @param heading the heading of each UAV
+     * @param destX the x-axis coordinate of the destination of each UAV
+     * @param destY the y-axis coordinate of the destination of each UAV
+     * @param links the sorted keys of the links
+     * @param cells the index of the grid cells whose level changed
+     * @param levels the new level of these cells
+     */
+    public FrameSnapshot(int step, int nbUAV, double[] x, double[] y, 
+	    double[] heading, double[] destX, double[] destY, int[] links,
+	    int[] cells, double[] levels) {
+	this.step = step;
+	this.nbUAV = nbUAV;
+	this.x = x;
+	this.y = y;
+	this.heading = heading;
+	this.destX = destX;
+	this.destY = destY;
+	this.links = links;
+	this.cells = cells;
+	this.levels = levels;
+    }
+
+    /**
+     * The key of a link, the keys being sorted by first end then by 
+     * second end
+     * @param id1 the smaller identifier, UAVGraph.BASE for the base
+     * @param id2 the bigger identifier
+     * @param nbUAV the number of UAVs
+     * @return the key of the link
+     */
+    public static int getLinkKey(int id1, int id2, int nbUAV){
+	return (id1 + 1) * (nbUAV + 1) + (id2 + 1);
+    }
+
+    /**
+     * @param key the key of a link
+     * @param nbUAV the number of UAVs
+     * @return the smaller identifier, UAVGraph.BASE for the base
+     */
+    public static int getLinkFirst(int key, int nbUAV){
+	return key / (nbUAV + 1) - 1;
+    }
+
+    /**
+     * @param key the key of a link
+     * @param nbUAV the number of UAVs
+     * @return the bigger identifier
+     */
+    public static int getLinkSecond(int key, int nbUAV){
+	return key % (nbUAV + 1) - 1;
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the step
+     */
+    public int getStep() {
+	return step;
+    }
+
+    /**
+     * @return the nbUAV
+     */
+    public int getNbUAV() {
+	return nbUAV;
+    }
+
+    /**
+     * @param id the identifier of a UAV
+     * @return its x-axis coordinate
+     */
+    public double getX(int id) {
+	return x[id];
+    }
+
+    /**
+     * @param id the identifier of a UAV
+     * @return its y-axis coordinate
+     */
+    public double getY(int id) {
+	return y[id];
+    }
+
+    /**
+     * @param id the identifier of a UAV
+     * @return its heading
+     */
+    public double getHeading(int id) {
+	return heading[id];
+    }
+
+    /**
+     * @param id the identifier of a UAV
+     * @return the x-axis coordinate of its destination
+     */
+    public double getDestX(int id) {
+	return destX[id];
+    }
+
+    /**
+     * @param id the identifier of a UAV
+     * @return the y-axis coordinate of its destination
+     */
+    public double getDestY(int id) {
+	return destY[id];
+    }
+
+    /**
+     * @return the number of links
+     */
+    public int getNbLinks() {
+	return links.length;
+    }
+
+    /**
+     * @param i a place between 0 and getNbLinks()-1
+     * @return the key of the link at this place
+     */
+    public int getLink(int i) {
+	return links[i];
+    }
+
+    /**
+     * @return the number of grid cells whose level changed
+     */
+    public int getNbCells() {
+	return cells.length;
+    }
+
+    /**
+     * @param i a place between 0 and getNbCells()-1
+     * @return the index of the grid cell at this place
+     */
+    public int getCell(int i) {
+	return cells[i];
+    }
+
+    /**
+     * @param i a place between 0 and getNbCells()-1
+     * @return the new level of the grid cell at this place
+     */
+    public double getLevel(int i) {
+	return levels[i];
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.uav.graph;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.DefaultGraph;
+import org.uav.AbstractUAV;
+import org.uav.status.Position;
+
+/**
+ * @author Julien Schleich
+ * Mirrors the simulation on the GraphStream graph which is displayed or 
+ * captured: each UAV is represented with two nodes and its destination 
+ * with a node, and the links of the {@link UAVGraph} are edges between 
+ * the UAVs and the base station. The simulation itself does not depend on
+ * it, so it is only built when the simulation is shown.
+ */
+public class GraphStreamObserver extends AbstractUAVGraphObserver {
+
+    /** The main graph, holding the simulation area */
+    protected DefaultGraph g;
+    /** The node of the base station */
+    protected Node base;
+    /** The representation of each UAV, by identifier */
+    protected UAVGraphRepresentationTwoNodes[] representations;
+    /** The node of the destination of each UAV, by identifier */
+    protected Node[] destinations;
+
+    /**
+     * Constructor, the simulation area must already be generated in g
+     * @param g the main graph
+     * @param nbUAV the number of UAVs
+     */
+    public GraphStreamObserver(DefaultGraph g, int nbUAV) {
+	this.g = g;
+	this.base = g.getNode("base");
+	this.representations = new UAVGraphRepresentationTwoNodes[nbUAV];
+	this.destinations = new Node[nbUAV];
+    }
+
+    /**
+     * Adds the representation of a UAV and of its destination
+     * @param u the UAV
+     */
+    public void addUAV(AbstractUAV u){
+	int id = u.getUavId();
+	representations[id] = new UAVGraphRepresentationTwoNodes(g, id);
+	representations[id].getFront().setAttribute("ui.label", id);
+	destinations[id] = g.addNode("d"+id);
+	destinations[id].setAttribute("ui.class", "dest");
+	refresh(u);
+    }
+
+    /**
+     * Moves the representations of the UAVs and of their destinations
+     * @param u the UAVs
+     * @param nbUAV the number of UAVs
+     */
+    public void refresh(AbstractUAV[] u, int nbUAV){
+	for (int i=0; i < nbUAV; i++)
+	    refresh(u[i]);
+    }
+
+    /**
+     * Moves the representation of a UAV and of its destination
+     * @param u the UAV
+     */
+    protected void refresh(AbstractUAV u){
+	int id = u.getUavId();
+	representations[id].refreshPositionOnGraph(
+		u.getAuto().getCurrentStatus());
+	Position dest = u.getAuto().getCurrentDestination()
+		.getCurrentDestination();
+	destinations[id].setAttribute("x", dest.getX());
+	destinations[id].setAttribute("y", dest.getY());
+    }
+
+    /**
+     * Moves the representations of the UAVs and of their destinations to
+     * their place in a frame
+     * @param f the frame
+     */
+    public void refresh(FrameSnapshot f){
+	for (int i=0; i < f.getNbUAV(); i++){
+	    representations[i].refreshPositionOnGraph(f.getX(i), f.getY(i), 
+		    f.getHeading(i));
+	    destinations[i].setAttribute("x", f.getDestX(i));
+	    destinations[i].setAttribute("y", f.getDestY(i));
+	}
+    }
+
+    /**
+     * @param id the identifier of a UAV, UAVGraph.BASE for the base
+     * @return the node linked to the others
+     */
+    protected Node getLinkNode(int id){
+	if (id == UAVGraph.BASE)
+	    return base;
+	return representations[id].getMainNode();
+    }
+
+    @Override
+    public void linkAdded(int id1, int id2) {
+	Node n1 = getLinkNode(id1);
+	Node n2 = getLinkNode(id2);
+	Edge e = g.addEdge(n1.getId()+"_"+n2.getId(), n1, n2);
+	e.addAttribute("ui.class", "neighbor");
+    }
+
+    @Override
+    public void linkRemoved(int id1, int id2) {
+	g.removeEdge(getLinkNode(id1), getLinkNode(id2));
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the g
+     */
+    public DefaultGraph getG() {
+	return g;
+    }
+
+    /**
+     * @param id the identifier of a UAV
+     * @return its representation
+     */
+    public UAVGraphRepresentationTwoNodes getRepresentation(int id) {
+	return representations[id];
+    }
+
+}
@@ -0,0 +1,281 @@
+package org.uav.graph;
+
+import java.util.Arrays;
+
+/**
+ * @author Julien Schleich
+ * The number of hops between the base station and every node of a 
+ * {@link UAVGraph}, i.e. the depth of each node in a breadth first search
+ * from the base. The field is repaired when a link is added or removed 
+ * instead of being computed again: an added link can only bring nodes 
+ * closer, which is spread from its ends; a removed link only moves away 
+ * the nodes which had no other shortest path, which are found level by 
+ * level from the link and then reached again from their surroundings.
+ */
+public class HopsToBase {
+
+    /** The number of hops of a node not connected to the base */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /** The graph */
+    protected UAVGraph graph;
+
+    /** The number of hops to the base of each node */
+    protected int[] hops;
+    /** The number of nodes connected to the base, the base included */
+    protected int nbReachable;
+
+    /** The nodes of the repair being done */
+    protected int[] queue;
+    /** The repair which last visited each node */
+    protected int[] marks;
+    /** The repair which last found each node moved away */
+    protected int[] affected;
+    /** The number of repairs done */
+    protected int stamp;
+    /** The nodes around the moved away nodes, as (hops, node) pairs */
+    protected long[] sources;
+
+    /**
+     * Constructor, the field is built from the current links
+     * @param graph the graph
+     */
+    public HopsToBase(UAVGraph graph) {
+	this.graph = graph;
+	this.hops = new int[0];
+	this.queue = new int[0];
+	this.marks = new int[0];
+	this.affected = new int[0];
+	this.sources = new long[0];
+	rebuild();
+    }
+
+    /**
+     * Computes the whole field again with a breadth first search
+     */
+    public void rebuild(){
+	ensureCapacity(graph.neighbours.length);
+	Arrays.fill(hops, UNREACHABLE);
+	nextStamp();
+	hops[0] = 0;
+	marks[0] = stamp;
+	queue[0] = 0;
+	int tail = 1;
+	for (int head = 0; head < tail; head++){
+	    int n = queue[head];
+	    int depth = hops[n] + 1;
+	    for (int k = 0; k < graph.degrees[n]; k++){
+		int o = graph.neighbours[n][k];
+		if (marks[o] != stamp){
+		    marks[o] = stamp;
+		    hops[o] = depth;
+		    queue[tail++] = o;
+		}
+	    }
+	}
+	nbReachable = tail;
+    }
+
+    /**
+     * To be called once a node is added to the graph, without any link
+     * @param n the node
+     */
+    public void nodeAdded(int n){
+	ensureCapacity(graph.neighbours.length);
+	hops[n] = UNREACHABLE;
+    }
+
+    /**
+     * To be called once a link is added to the graph
+     * @param n1 the first end of the link
+     * @param n2 the second end of the link
+     */
+    public void edgeAdded(int n1, int n2){
+	int h1 = hops[n1];
+	int h2 = hops[n2];
+	if ((h1 != UNREACHABLE) && (h1 + 1 < h2))
+	    decrease(n2, h1 + 1);
+	else if ((h2 != UNREACHABLE) && (h2 + 1 < h1))
+	    decrease(n1, h2 + 1);
+    }
+
+    /**
+     * To be called once a link is removed from the graph
+     * @param n1 the first end of the link
+     * @param n2 the second end of the link
+     */
+    public void edgeRemoved(int n1, int n2){
+	int h1 = hops[n1];
+	int h2 = hops[n2];
+	if ((h1 != UNREACHABLE) && (h2 == h1 + 1))
+	    increase(n2);
+	else if ((h2 != UNREACHABLE) && (h1 == h2 + 1))
+	    increase(n1);
+    }
+
+    /**
+     * Brings a node closer to the base and spreads it to its neighbours
+     * @param n the node
+     * @param depth its new number of hops
+     */
+    protected void decrease(int n, int depth){
+	if (hops[n] == UNREACHABLE)
+	    nbReachable++;
+	hops[n] = depth;
+	queue[0] = n;
+	int tail = 1;
+	for (int head = 0; head < tail; head++){
+	    int m = queue[head];
+	    int d = hops[m] + 1;
+	    for (int k = 0; k < graph.degrees[m]; k++){
+		int o = graph.neighbours[m][k];
+		if (hops[o] > d){
+		    if (hops[o] == UNREACHABLE)
+			nbReachable++;
+		    hops[o] = d;
+		    queue[tail++] = o;
+		}
+	    }
+	}
+    }
+
+    /**
+     * Moves away a node which lost a link to the previous level, if it has
+     * no other neighbour on that level, and the nodes depending on it
+     * @param n the node
+     */
+    protected void increase(int n){
+	nextStamp();
+	/** Finding the nodes moved away, level by level */
+	int nbAffected = 0;
+	marks[n] = stamp;
+	queue[0] = n;
+	int tail = 1;
+	for (int head = 0; head < tail; head++){
+	    int m = queue[head];
+	    if (hasSupport(m))
+		continue;
+	    affected[m] = stamp;
+	    queue[nbAffected++] = m;
+	    int d = hops[m] + 1;
+	    for (int k = 0; k < graph.degrees[m]; k++){
+		int o = graph.neighbours[m][k];
+		if ((hops[o] == d) && (marks[o] != stamp)){
+		    marks[o] = stamp;
+		    queue[tail++] = o;
+		}
+	    }
+	}
+	if (nbAffected == 0)
+	    return;
+
+	/** The nodes left in place around them, closest first */
+	int nbSources = 0;
+	for (int i = 0; i < nbAffected; i++){
+	    int m = queue[i];
+	    for (int k = 0; k < graph.degrees[m]; k++){
+		int o = graph.neighbours[m][k];
+		if ((affected[o] != stamp) && (hops[o] != UNREACHABLE)){
+		    if (nbSources == sources.length)
+			sources = Arrays.copyOf(sources, 2 * nbSources + 1);
+		    sources[nbSources++] = ((long)hops[o] << 32) | o;
+		}
+	    }
+	}
+	Arrays.sort(sources, 0, nbSources);
+	for (int i = 0; i < nbAffected; i++)
+	    hops[queue[i]] = UNREACHABLE;
+	nbReachable -= nbAffected;
+
+	/**
+	 * Breadth first search from the sources, taken in order of hops
+	 * between the levels of the search
+	 */
+	int head = 0;
+	tail = 0;
+	int s = 0;
+	while ((s < nbSources) || (head < tail)){
+	    int m;
+	    if ((head == tail) || ((s < nbSources) &&
+		    ((int)(sources[s] >>> 32) <= hops[queue[head]])))
+		m = (int)sources[s++];
+	    else
+		m = queue[head++];
+	    int d = hops[m] + 1;
+	    for (int k = 0; k < graph.degrees[m]; k++){
+		int o = graph.neighbours[m][k];
+		if ((affected[o] == stamp) && (hops[o] == UNREACHABLE)){
+		    hops[o] = d;
+		    nbReachable++;
+		    queue[tail++] = o;
+		}
+	    }
+	}
+    }
+
+    /**
+     * @param n a node being checked by a repair
+     * @return true if the node still has a neighbour one hop closer to the
+     * base which is not moved away
+     */
+    protected boolean hasSupport(int n){
+	int h = hops[n];
+	if (h == 0)
+	    return true;
+	for (int k = 0; k < graph.degrees[n]; k++){
+	    int o = graph.neighbours[n][k];
+	    if ((hops[o] == h - 1) && (affected[o] != stamp))
+		return true;
+	}
+	return false;
+    }
+
+    /**
+     * Starts a new repair, no node is marked any more
+     */
+    protected void nextStamp(){
+	stamp++;
+	if (stamp == 0){
+	    Arrays.fill(marks, 0);
+	    Arrays.fill(affected, 0);
+	    stamp = 1;
+	}
+    }
+
+    /**
+     * @param nbNodes the number of nodes to hold
+     */
+    protected void ensureCapacity(int nbNodes){
+	if (hops.length >= nbNodes)
+	    return;
+	int capacity = Math.max(nbNodes, 2 * hops.length);
+	int old = hops.length;
+	hops = Arrays.copyOf(hops, capacity);
+	Arrays.fill(hops, old, capacity, UNREACHABLE);
+	queue = new int[capacity];
+	marks = Arrays.copyOf(marks, capacity);
+	affected = Arrays.copyOf(affected, capacity);
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @param n a node of the graph, 0 for the base
+     * @return its number of hops to the base, UNREACHABLE if not connected
+     */
+    public int getNbHops(int n){
+	return hops[n];
+    }
+
+    /**
+     * @return the number of nodes connected to the base, the base included
+     */
+    public int getNbReachable() {
+	return nbReachable;
+    }
+
+}
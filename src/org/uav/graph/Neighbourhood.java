@@ -0,0 +1,96 @@
+package org.uav.graph;
+
+import java.util.Arrays;
+
+/**
+ * @author Julien Schleich
+ * The result of a bounded breadth first search on the {@link UAVGraph}:
+ * the identifiers of the UAVs within a number of hops of a UAV, with their
+ * depth, in the order a full breadth first search would visit them. The
+ * UAV itself comes first at depth 0 and the base station is reported with
+ * the identifier BASE. The instance also holds the search queue and marks,
+ * so that a UAV owning one can query its neighbourhood without allocating.
+ */
+public class Neighbourhood {
+
+    /** The identifier reported for the base station */
+    public static final int BASE = UAVGraph.BASE;
+
+    /** The nodes found, in visit order, which is also the search queue */
+    protected int[] nodes;
+    /** The depth of each node found */
+    protected int[] depths;
+    /** The number of nodes found */
+    protected int size;
+
+    /** The search which last marked each node */
+    protected int[] marks;
+    /** The number of searches done, marking the nodes of the current one */
+    protected int stamp;
+
+    /**
+     * Constructor, the scratch space grows with the graph
+     */
+    public Neighbourhood() {
+	this.nodes = new int[0];
+	this.depths = new int[0];
+	this.marks = new int[0];
+    }
+
+    /**
+     * Starts a new search, nothing is marked any more
+     * @param nbNodes the number of nodes of the graph
+     */
+    protected void clear(int nbNodes){
+	if (nodes.length < nbNodes){
+	    nodes = new int[nbNodes];
+	    depths = new int[nbNodes];
+	    marks = new int[nbNodes];
+	    stamp = 0;
+	}
+	stamp++;
+	if (stamp == 0){
+	    Arrays.fill(marks, 0);
+	    stamp = 1;
+	}
+	size = 0;
+    }
+
+    /**
+     * Adds a node at the end of the search, if not already found
+     * @param node the node
+     * @param depth its depth
+     */
+    protected void add(int node, int depth){
+	if (marks[node] == stamp)
+	    return;
+	marks[node] = stamp;
+	nodes[size] = node;
+	depths[size] = depth;
+	size++;
+    }
+
+    /**
+     * @param i a place between 0 and size()-1
+     * @return the identifier of the node at this place, BASE for the base
+     */
+    public int getId(int i){
+	return nodes[i] - 1;
+    }
+
+    /**
+     * @param i a place between 0 and size()-1
+     * @return the number of hops between the UAV and the node at this place
+     */
+    public int getDepth(int i){
+	return depths[i];
+    }
+
+    /**
+     * @return the number of nodes found, the UAV included
+     */
+    public int size(){
+	return size;
+    }
+
+}
@@ -3,90 +3,263 @@
  */
 package org.uav.graph;
 
-import org.graphstream.graph.Node;
-import org.graphstream.graph.implementations.DefaultGraph;
+import java.util.Arrays;
+
 import org.uav.AbstractUAV;
 import org.uav.simulation.Simulation;
 
 /**
  * @author Julien Schleich
- * This class manages a graph where the nodes are the UAVs
- * and the edges are the connections based on the big graph 
- * of the simulation
+ * This class manages a graph where the nodes are the UAVs and the base
+ * station, and the edges are their wireless links. It is a plain 
+ * adjacency structure: node 0 is the base station and the node of a UAV
+ * is its identifier plus one. The neighbours of a node are kept in the 
+ * order their links were added, a removed link being replaced by the 
+ * last one. An observer can follow the link changes, e.g. to show them.
  */
 public class UAVGraph {
 
+    /** The identifier of the base station */
+    public static final int BASE = -1;
+
     /** The simulation instance */
     protected Simulation s;
 
-    /** The communication graph of the UAVs */
-    protected DefaultGraph uavGraph;
+    /** The UAVs of the graph, by identifier */
+    protected AbstractUAV[] uavs;
+    /** The number of nodes, the base included */
+    protected int nbNodes;
+    /** The neighbour nodes of each node */
+    protected int[][] neighbours;
+    /** The number of neighbours of each node */
+    protected int[] degrees;
+
+    /** The number of hops of each node to the base station */
+    protected HopsToBase hopsToBase;
+    /** The connected components of the graph */
+    protected ConnectedComponentsTracker components;
+    /** The observer of the link changes, null if none */
+    protected AbstractUAVGraphObserver observer;
 
     /**
      * The constructor
-     * @param g the instance of {@link Simulation}
+     * @param s the instance of {@link Simulation}
      */
     public UAVGraph(Simulation s){
 	this.s = s;
 	this.initGraph();
     }
 
+    /**
+     * Initialises the graph with the base station only
+     */
     public void initGraph(){
-	this.uavGraph = new DefaultGraph("uavGraph");
-	Node n = this.uavGraph.addNode("base");
-	n.setAttribute("x", s.getBaseX());
-	n.setAttribute("y", s.getBaseY());
+	this.uavs = new AbstractUAV[0];
+	this.neighbours = new int[][] {new int[0]};
+	this.degrees = new int[1];
+	this.nbNodes = 1;
+	this.hopsToBase = new HopsToBase(this);
+	this.components = new ConnectedComponentsTracker(this);
     }
 
     /**
-     * A method to add a new UAV
-     * @param id the identifier of the UAV
+     * A method to add a new UAV, without any link
+     * @param u the UAV
      */
-    public Node addNode(AbstractUAV u){
-	Node n = uavGraph.addNode("uav"+u.getUavId());
-	n.setAttribute("uavinstance", u);
-	return n;
+    public void addNode(AbstractUAV u){
+	int id = u.getUavId();
+	if (id >= uavs.length){
+	    int capacity = Math.max(id + 1, 2 * uavs.length);
+	    uavs = Arrays.copyOf(uavs, capacity);
+	    int old = neighbours.length;
+	    neighbours = Arrays.copyOf(neighbours, capacity + 1);
+	    for (int i = old; i < neighbours.length; i++)
+		neighbours[i] = new int[0];
+	    degrees = Arrays.copyOf(degrees, capacity + 1);
+	}
+	uavs[id] = u;
+	nbNodes++;
+	hopsToBase.nodeAdded(id + 1);
+	components.nodeAdded(id + 1);
     }
 
     /**
-     * A method to remove a UAV 
-     * @param id the identifier of the UAV
+     * A method to remove a UAV and its links
+     * @param uavId the identifier of the UAV
      */
-    public void removeNode(String id){
-	uavGraph.removeNode(id);
+    public void removeNode(int uavId){
+	if (getUAV(uavId) == null)
+	    return;
+	int node = uavId + 1;
+	while (degrees[node] > 0)
+	    removeEdge(uavId, neighbours[node][degrees[node] - 1] - 1);
+	uavs[uavId] = null;
+	nbNodes--;
+	components.nodeRemoved(node);
     }
 
     /**
-     * A method to add an edge
-     * @param id the identifier 
-     * @param n1 the first node
-     * @param n2 the second node
+     * A method to add a link, nothing is done if it already exists
+     * @param id1 the identifier of the first UAV, BASE for the base
+     * @param id2 the identifier of the second UAV, BASE for the base
      */
-    public void addEdge(String id, Node n1, Node n2){
-	uavGraph.addEdge(id, n1, n2);
+    public void addEdge(int id1, int id2){
+	if (hasEdge(id1, id2))
+	    return;
+	int n1 = id1 + 1;
+	int n2 = id2 + 1;
+	append(n1, n2);
+	append(n2, n1);
+	hopsToBase.edgeAdded(n1, n2);
+	components.edgeAdded(n1, n2);
+	if (observer != null)
+	    observer.linkAdded(id1, id2);
     }
 
     /**
-     * A method to remove an edge
-     * @param n1 the first node
-     * @param n2 the second node
+     * A method to remove a link, nothing is done if it does not exist
+     * @param id1 the identifier of the first UAV, BASE for the base
+     * @param id2 the identifier of the second UAV, BASE for the base
      */
-    public void removeEdge(Node n1, Node n2){
-	uavGraph.removeEdge(n1, n2);
+    public void removeEdge(int id1, int id2){
+	int n1 = id1 + 1;
+	int n2 = id2 + 1;
+	if (!remove(n1, n2))
+	    return;
+	remove(n2, n1);
+	components.edgeRemoved(n1, n2);
+	hopsToBase.edgeRemoved(n1, n2);
+	if (observer != null)
+	    observer.linkRemoved(id1, id2);
     }
 
     /**
-     * @return the s
+     * @param id1 the identifier of the first UAV, BASE for the base
+     * @param id2 the identifier of the second UAV, BASE for the base
+     * @return true if the two are linked
      */
-    public Simulation getS() {
-	return s;
+    public boolean hasEdge(int id1, int id2){
+	int n1 = id1 + 1;
+	int n2 = id2 + 1;
+	for (int k = 0; k < degrees[n1]; k++)
+	    if (neighbours[n1][k] == n2)
+		return true;
+	return false;
+    }
+
+    /**
+     * Adds a neighbour at the end of the neighbours of a node
+     * @param node the node
+     * @param neighbour the neighbour node
+     */
+    protected void append(int node, int neighbour){
+	if (degrees[node] == neighbours[node].length)
+	    neighbours[node] = Arrays.copyOf(neighbours[node], 
+		    Math.max(4, 2 * degrees[node]));
+	neighbours[node][degrees[node]++] = neighbour;
+    }
+
+    /**
+     * Removes a neighbour of a node, the last one taking its place
+     * @param node the node
+     * @param neighbour the neighbour node
+     * @return false if it was not a neighbour
+     */
+    protected boolean remove(int node, int neighbour){
+	int[] list = neighbours[node];
+	for (int k = 0; k < degrees[node]; k++){
+	    if (list[k] == neighbour){
+		degrees[node]--;
+		list[k] = list[degrees[node]];
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * @param uavId the identifier of a UAV, BASE for the base
+     * @return its number of links
+     */
+    public int getDegree(int uavId){
+	return degrees[uavId + 1];
     }
 
     /**
-     * @return the uavGraph
+     * @param uavId the identifier of a UAV, BASE for the base
+     * @param k a place between 0 and getDegree(uavId)-1
+     * @return the identifier of its k-th neighbour, BASE for the base
      */
-    public DefaultGraph getUavGraph() {
-	return uavGraph;
+    public int getNeighbour(int uavId, int k){
+	return neighbours[uavId + 1][k] - 1;
+    }
+
+    /**
+     * @param uavId the identifier of a UAV
+     * @return the UAV, null if it is not in the graph
+     */
+    public AbstractUAV getUAV(int uavId){
+	if ((uavId < 0) || (uavId >= uavs.length))
+	    return null;
+	return uavs[uavId];
+    }
+
+    /**
+     * @param uavId the identifier of a UAV
+     * @return the number of hops between the UAV and the base station,
+     * HopsToBase.UNREACHABLE if they are not connected
+     */
+    public int getNbHopsToBase(int uavId){
+	if (getUAV(uavId) == null)
+	    return HopsToBase.UNREACHABLE;
+	return hopsToBase.getNbHops(uavId + 1);
+    }
+
+    /**
+     * @return the number of UAVs connected to the base station
+     */
+    public int getNbUAVConnectedToBase(){
+	return hopsToBase.getNbReachable() - 1;
+    }
+
+    /**
+     * A breadth first search from a UAV which does not expand the nodes 
+     * at nbHop hops, so that only its neighbourhood is visited. The nodes
+     * are found in the order of a full breadth first search, the base 
+     * station included.
+     * @param uavId the identifier of the UAV
+     * @param nbHop the maximum number of hops to the UAV
+     * @param res the neighbourhood to fill
+     * @return the neighbourhood, empty if the UAV is not in the graph
+     */
+    public Neighbourhood getNeighbourhood(int uavId, int nbHop,
+	    Neighbourhood res){
+	res.clear(neighbours.length);
+	if (getUAV(uavId) == null)
+	    return res;
+	res.add(uavId + 1, 0);
+	for (int head = 0; head < res.size(); head++){
+	    int depth = res.getDepth(head) + 1;
+	    if (depth > nbHop)
+		break;
+	    int node = res.nodes[head];
+	    for (int k = 0; k < degrees[node]; k++)
+		res.add(neighbours[node][k], depth);
+	}
+	return res;
+    }
+
+    /*********************************************
+     *
+     * Getters / Setters
+     *
+     ********************************************/
+
+    /**
+     * @return the s
+     */
+    public Simulation getS() {
+	return s;
     }
 
     /**
@@ -97,11 +270,38 @@ public class UAVGraph {
     }
 
     /**
-     * @param uavGraph the uavGraph to set
+     * @return the number of nodes, the base included
      */
-    public void setUavGraph(DefaultGraph uavGraph) {
-	this.uavGraph = uavGraph;
+    public int getNbNodes() {
+	return nbNodes;
     }
 
+    /**
+     * @return the hopsToBase
+     */
+    public HopsToBase getHopsToBase() {
+	return hopsToBase;
+    }
+
+    /**
+     * @return the components
+     */
+    public ConnectedComponentsTracker getComponents() {
+	return components;
+    }
+
+    /**
+     * @return the observer
+     */
+    public AbstractUAVGraphObserver getObserver() {
+	return observer;
+    }
+
+    /**
+     * @param observer the observer to set, null for none
+     */
+    public void setObserver(AbstractUAVGraphObserver observer) {
+	this.observer = observer;
+    }
 
 }
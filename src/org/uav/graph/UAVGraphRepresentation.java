@@ -17,6 +17,10 @@ public abstract class UAVGraphRepresentation {
 
 	protected Node mainNode;
 	protected int id;
+	/** The x-axis coordinate given to the main node */
+	protected double mainX;
+	/** The y-axis coordinate given to the main node */
+	protected double mainY;
 
 	/**
 	 * The regular constructor
@@ -32,7 +36,19 @@ public abstract class UAVGraphRepresentation {
 	 * Refresh the representation of the UAV 
 	 * @param s an instance of {@link Status}
 	 */
-	abstract public void refreshPositionOnGraph(Status s);
+	public void refreshPositionOnGraph(Status s){
+		refreshPositionOnGraph(s.getPositionX(), s.getPositionY(), 
+				s.getHeadingValue());
+	}
+
+	/**
+	 * Refresh the representation of the UAV 
+	 * @param x the x-axis coordinate of the UAV
+	 * @param y the y-axis coordinate of the UAV
+	 * @param heading the heading of the UAV
+	 */
+	abstract public void refreshPositionOnGraph(double x, double y, 
+			double heading);
 
 	/**
 	 * @return the mainNode
@@ -41,6 +57,20 @@ public abstract class UAVGraphRepresentation {
 		return mainNode;
 	}
 
+	/**
+	 * @return the x-axis coordinate of the main node
+	 */
+	public double getMainX() {
+		return mainX;
+	}
+
+	/**
+	 * @return the y-axis coordinate of the main node
+	 */
+	public double getMainY() {
+		return mainY;
+	}
+
 	/**
 	 * @return the id
 	 */
@@ -3,7 +3,6 @@ package org.uav.graph;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
-import org.uav.status.Status;
 /**
  * @author Julien Schleich
  * A specialization to represent a UAV with two 
@@ -29,16 +28,18 @@ public class UAVGraphRepresentationTwoNodes extends UAVGraphRepresentation {
 		this.body.setAttribute("ui.class", "body");
 	}
 
-	public void refreshPositionOnGraph(Status s){
+	public void refreshPositionOnGraph(double x, double y, double heading){
 		
-		double moveX = Math.cos(s.getHeadingValue()) * this.bodyLength;
-		double moveY = Math.sin(s.getHeadingValue()) * this.bodyLength;
+		double moveX = Math.cos(heading) * this.bodyLength;
+		double moveY = Math.sin(heading) * this.bodyLength;
 		
-		front.setAttribute("x", (s.getPositionX() + moveX));
-		front.setAttribute("y", (s.getPositionY() + moveY));
+		this.mainX = x + moveX;
+		this.mainY = y + moveY;
+		front.setAttribute("x", mainX);
+		front.setAttribute("y", mainY);
 		
-		back.setAttribute("x", (s.getPositionX() - moveX));
-		back.setAttribute("y", (s.getPositionY() - moveY));
+		back.setAttribute("x", (x - moveX));
+		back.setAttribute("y", (y - moveY));
 	}
 
 	/**
@@ -1,6 +1,8 @@
 package org.uav.metrics;
 
 import org.uav.area.AbstractSimulationArea;
+import org.uav.area.CoverageCounters;
+import org.uav.area.RectangularSimulationArea;
 import org.uav.simulation.Simulation;
 
 /**
@@ -25,5 +27,12 @@ public abstract class AbstractAreaMetric extends AbstractMetric {
 	this.nbCells = stepX * stepY;
     }
 
+    /**
+     * @return the running coverage counters of the area
+     */
+    protected CoverageCounters getCounters(){
+	return ((RectangularSimulationArea) area).getPheromoneField().getCounters();
+    }
+
 
 }
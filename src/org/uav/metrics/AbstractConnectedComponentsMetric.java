@@ -1,28 +1,25 @@
 package org.uav.metrics;
 
-import org.graphstream.algorithm.ConnectedComponents;
+import org.uav.graph.ConnectedComponentsTracker;
 import org.uav.simulation.Simulation;
 
 /** 
- * An abstract class for metrics requiring a ConnectedComponent instance 
+ * An abstract class for metrics reading the connected components of the 
+ * UAV graph, which the graph keeps up to date from its link changes
  * @author Julien Schleich
  *
  */
 public abstract class AbstractConnectedComponentsMetric 
 extends AbstractUAVGraphMetric {
 
-    /** A Graphstream ConnectedComponent object */
-    protected ConnectedComponents cc;
-
-    /** We will compute the cc on the UAV Graph */
+    /** We will read the cc of the UAV Graph */
     public AbstractConnectedComponentsMetric(String name, Simulation simu) {
 	super(name, simu);
-	this.cc = new ConnectedComponents(simu.uavGraph.getUavGraph());
     }
 
-    /** Updating the cc object */
-    void updateConnectedComponents(){
-	this.cc.compute();
+    /** The cc of the UAV graph, up to date */
+    ConnectedComponentsTracker getConnectedComponents(){
+	return simu.uavGraph.getComponents();
     }
 
 }
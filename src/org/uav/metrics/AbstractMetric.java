@@ -12,6 +12,8 @@ public abstract class AbstractMetric {
     protected Simulation simu;
     /* The name of the metric */
     public String name;
+    /** The number of decimals kept by the outputs, 0 for an integer */
+    protected int decimals = 2;
 
     @SuppressWarnings("unused")
     private AbstractMetric(){}
@@ -27,8 +29,16 @@ public abstract class AbstractMetric {
      */
     abstract void initializeMetric();
     /**
-     * The abstract method to retrieve the metric value
+     * The abstract method to retrieve the metric value, not rounded: the
+     * outputs round it to the number of decimals of the metric
      * @return the metric value
      */
-    abstract Object getMetricValue();
+    abstract double getMetricValue();
+
+    /**
+     * @return the number of decimals kept by the outputs, 0 for an integer
+     */
+    public int getDecimals() {
+	return decimals;
+    }
 }
@@ -0,0 +1,51 @@
+package org.uav.metrics;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The root abstract class for the outputs of the {@link MetricsManager}:
+ * a sink is opened with the names of the columns and the parameters of 
+ * the run, then receives one row of metric values per sample. The values
+ * are not rounded, each sink formats them as it needs.
+ * @author Julien Schleich
+ *
+ */
+public abstract class AbstractMetricsSink {
+
+    /**
+     * Opens the sink
+     * @param names the names of the columns, the time first
+     * @param decimals the number of decimals of each metric, 0 for an 
+     * integer, in the order of the values
+     * @param parameters the parameters of the run, by name
+     * @throws IOException if the sink cannot be opened
+     */
+    public abstract void open(List<String> names, int[] decimals,
+	    Map<String, String> parameters) throws IOException;
+
+    /**
+     * Writes one sample, the values may be reused once it returns
+     * @param time the timestep of the sample
+     * @param values the value of each metric, in the order of the names
+     * @throws IOException if the sample cannot be written
+     */
+    public abstract void write(int time, double[] values) throws IOException;
+
+    /**
+     * Writes what is still buffered and closes the sink
+     * @throws IOException if the sink cannot be closed
+     */
+    public abstract void close() throws IOException;
+
+    /**
+     * Closes the sink of a run which failed. The samples written are kept
+     * by default, a sink may discard them instead.
+     * @throws IOException if the sink cannot be closed
+     */
+    public void abort() throws IOException {
+	close();
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.uav.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The output of one run to a {@link MetricsAggregator}, shared with the
+ * other runs. The samples, written in time order, are averaged over each
+ * time bucket of the aggregator, and the means of the run are kept until
+ * the sink is closed, then merged into the summaries of its configuration
+ * all at once. Each run thus counts once per bucket, whatever its number
+ * of samples in it, and a run which fails, whose sink is aborted, adds
+ * nothing to the summaries.
+ * @author Julien Schleich
+ *
+ */
+public class AggregatingMetricsSink extends AbstractMetricsSink {
+
+    /** The aggregator */
+    private MetricsAggregator aggregator;
+    /** The name of the configuration of the run */
+    private String configuration;
+
+    /** The start of the current bucket */
+    private int bucketStart;
+    /** The sum of the values of each metric in the current bucket */
+    private double[] sums;
+    /** The number of values of each metric in the current bucket */
+    private int[] counts;
+    /** True if a sample is in the current bucket */
+    private boolean pending;
+    /** The start of each bucket left, with the means of the run in it */
+    private List<Integer> bucketStarts;
+    private List<double[]> bucketMeans;
+
+    /**
+     * Constructor, see {@link MetricsAggregator#newSink(String)}
+     * @param aggregator the aggregator
+     * @param configuration the name of the configuration of the run
+     */
+    public AggregatingMetricsSink(MetricsAggregator aggregator,
+	    String configuration){
+	this.aggregator = aggregator;
+	this.configuration = configuration;
+	this.bucketStarts = new ArrayList<Integer>();
+	this.bucketMeans = new ArrayList<double[]>();
+    }
+
+    @Override
+    public void open(List<String> names, int[] decimals,
+	    Map<String, String> parameters) throws IOException {
+	aggregator.setNames(names);
+    }
+
+    @Override
+    public void write(int time, double[] values) throws IOException {
+	int start = aggregator.getBucketStart(time);
+	if (pending && (start != bucketStart))
+	    flush();
+	if (sums == null){
+	    sums = new double[values.length];
+	    counts = new int[values.length];
+	}
+	bucketStart = start;
+	pending = true;
+	for (int i = 0; i < values.length; i++){
+	    if (Double.isNaN(values[i]))
+		continue;
+	    sums[i] += values[i];
+	    counts[i]++;
+	}
+    }
+
+    /**
+     * Gives the means of the run in every bucket to the aggregator
+     */
+    @Override
+    public void close() throws IOException {
+	if (pending)
+	    flush();
+	for (int i = 0; i < bucketStarts.size(); i++)
+	    aggregator.add(configuration, bucketStarts.get(i),
+		    bucketMeans.get(i));
+	aggregator.runCompleted(configuration);
+	bucketStarts.clear();
+	bucketMeans.clear();
+    }
+
+    /**
+     * Discards the means of the run, none is given to the aggregator
+     */
+    @Override
+    public void abort() throws IOException {
+	if (pending){
+	    Arrays.fill(sums, 0);
+	    Arrays.fill(counts, 0);
+	    pending = false;
+	}
+	bucketStarts.clear();
+	bucketMeans.clear();
+    }
+
+    /**
+     * Keeps the means of the run in the current bucket, NaN for a metric
+     * without any value, and empties the bucket
+     */
+    private void flush(){
+	double[] means = new double[sums.length];
+	for (int i = 0; i < sums.length; i++){
+	    means[i] = (counts[i] == 0) ? Double.NaN : sums[i] / counts[i];
+	    sums[i] = 0;
+	    counts[i] = 0;
+	}
+	bucketStarts.add(bucketStart);
+	bucketMeans.add(means);
+	pending = false;
+    }
+
+    /**
+     * @return the configuration
+     */
+    public String getConfiguration() {
+	return configuration;
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.uav.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A compact binary output of the metrics, for dense sampling over many 
+ * runs. The file is written through a {@link FileChannel} from a large 
+ * direct buffer, in big endian order:
+ * 	- the magic number "UAVM", the version of the format and the size in
+ * bytes of the rest of the header,
+ * 	- the number of parameters of the run, then each name and value as 
+ * modified UTF-8 strings (see {@link DataOutputStream#writeUTF(String)}),
+ * 	- the number of columns, then the name of each column, the time first,
+ * 	- one record per sample: one double per column, not rounded.
+ * The records have a fixed width, e.g. they are read with numpy by
+ * fromfile(f, '>f8', offset=12+headerSize).reshape(-1, nbColumns).
+ * @author Julien Schleich
+ *
+ */
+public class BinaryMetricsSink extends AbstractMetricsSink {
+
+    /** The magic number at the start of the file, "UAVM" */
+    public static final int MAGIC = 0x5541564D;
+    /** The version of the format */
+    public static final int VERSION = 1;
+    /** The default size of the buffer */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /** The name of the file */
+    private String fileName;
+    /** The size of the buffer */
+    private int bufferSize;
+    /** The file */
+    private FileChannel channel;
+    /** The buffer of the records not written yet */
+    private ByteBuffer buffer;
+    /** The size of a record */
+    private int recordSize;
+
+    /**
+     * Constructor with the default buffer size
+     * @param fileName the name of the file
+     */
+    public BinaryMetricsSink(String fileName){
+	this(fileName, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor
+     * @param fileName the name of the file
+     * @param bufferSize the size of the buffer, in bytes
+     */
+    public BinaryMetricsSink(String fileName, int bufferSize){
+	this.fileName = fileName;
+	this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void open(List<String> names, int[] decimals,
+	    Map<String, String> parameters) throws IOException {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	DataOutputStream header = new DataOutputStream(bytes);
+	header.writeInt(parameters.size());
+	for (Entry<String, String> parameter : parameters.entrySet()){
+	    header.writeUTF(parameter.getKey());
+	    header.writeUTF(parameter.getValue());
+	}
+	header.writeInt(names.size());
+	for (String name : names)
+	    header.writeUTF(name);
+	header.flush();
+
+	this.recordSize = 8 * names.size();
+	this.buffer = ByteBuffer.allocateDirect(
+		Math.max(bufferSize, 12 + bytes.size() + recordSize));
+	this.channel = new FileOutputStream(fileName).getChannel();
+	buffer.putInt(MAGIC);
+	buffer.putInt(VERSION);
+	buffer.putInt(bytes.size());
+	buffer.put(bytes.toByteArray());
+    }
+
+    @Override
+    public void write(int time, double[] values) throws IOException {
+	if (buffer.remaining() < recordSize)
+	    drain();
+	buffer.putDouble(time);
+	for (int i = 0; i < values.length; i++)
+	    buffer.putDouble(values[i]);
+    }
+
+    /**
+     * Writes the content of the buffer to the file
+     * @throws IOException if it cannot be written
+     */
+    private void drain() throws IOException {
+	buffer.flip();
+	while (buffer.hasRemaining())
+	    channel.write(buffer);
+	buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+	try {
+	    drain();
+	}
+	finally {
+	    channel.close();
+	}
+    }
+
+    /**
+     * @return the fileName
+     */
+    public String getFileName() {
+	return fileName;
+    }
+
+}
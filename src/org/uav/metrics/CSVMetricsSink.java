@@ -0,0 +1,91 @@
+package org.uav.metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The historic output of the metrics: a CSV file with a title line and 
+ * one line per sample. The parameters of the run are not written. Each 
+ * value is rounded to the decimals of its metric and printed as a double,
+ * or as an integer when the metric has no decimals.
+ * @author Julien Schleich
+ *
+ */
+public class CSVMetricsSink extends AbstractMetricsSink {
+
+    /** The name of the file */
+    private String fileName;
+    /** The buffer to write the results */
+    private BufferedWriter out;
+    /** The number of decimals of each metric */
+    private int[] decimals;
+    /** The line being built */
+    private StringBuilder line = new StringBuilder();
+    /** The characters of the line, given to the buffer */
+    private char[] chars = new char[256];
+
+    /**
+     * Constructor
+     * @param fileName the name of the file
+     */
+    public CSVMetricsSink(String fileName){
+	this.fileName = fileName;
+    }
+
+    @Override
+    public void open(List<String> names, int[] decimals,
+	    Map<String, String> parameters) throws IOException {
+	this.decimals = decimals;
+	this.out = new BufferedWriter(new FileWriter(fileName));
+	line.setLength(0);
+	for (String name : names)
+	    line.append(name).append(',');
+	/** Removal of the extra ',' character */
+	line.setLength(line.length()-1);
+	out.write(line.append('\n').toString());
+    }
+
+    @Override
+    public void write(int time, double[] values) throws IOException {
+	line.setLength(0);
+	line.append(time);
+	for (int i = 0; i < values.length; i++)
+	    appendValue(line.append(','), values[i], decimals[i]);
+	line.append('\n');
+	if (chars.length < line.length())
+	    chars = new char[2 * line.length()];
+	line.getChars(0, line.length(), chars, 0);
+	out.write(chars, 0, line.length());
+    }
+
+    /**
+     * Appends a value the way the CSV file shows it
+     * @param str the text to complete
+     * @param value the value, not rounded
+     * @param decimals its number of decimals, 0 for an integer
+     * @return the text
+     */
+    public static StringBuilder appendValue(StringBuilder str, double value,
+	    int decimals) {
+	if (decimals == 0)
+	    return str.append(Math.round(value));
+	double scale = Math.pow(10, decimals);
+	return str.append(Math.round(value * scale) / scale);
+    }
+
+    @Override
+    public void close() throws IOException {
+	out.close();
+    }
+
+    /**
+     * @return the fileName
+     */
+    public String getFileName() {
+	return fileName;
+    }
+
+}
@@ -20,12 +20,9 @@ extends AbstractConnectedComponentsMetric {
     }
 
     @Override
-    Object getMetricValue() {
-	this.updateConnectedComponents();
-	return Math.round(
-		((double)this.cc.getGiantComponent().size() / 
-			(double)(simu.uavGraph.getUavGraph().getNodeCount())) *
-			100 * 100)/100.0;
+    double getMetricValue() {
+	return ((double)this.getConnectedComponents().getGiantComponentSize() / 
+		(double)(simu.uavGraph.getNbNodes())) * 100;
     }
 
 }
@@ -1,8 +1,5 @@
 package org.uav.metrics;
 
-import org.graphstream.graph.Node;
-import org.uav.area.RectangularSimulationArea;
-import org.uav.area.RectangularSimulationAreaIterator;
 import org.uav.simulation.Simulation;
 
 /**
@@ -24,21 +21,10 @@ public class MetricNbCellsOlderThanThreshold extends AbstractAreaMetric {
     }
 
     @Override
-    Object getMetricValue() {
-	this.nbCellsOlderThanThreshold = 0;
-	RectangularSimulationAreaIterator it = 
-		new RectangularSimulationAreaIterator(
-			(RectangularSimulationArea) area);
-	while (it.hasNext()){
-	    Node n = it.next();
-	    Double time = n.getAttribute("pheromone");
-	    /** Too old cells */
-	    if ((time < 0) && (Math.abs(time) >= simu.getTooOld()))
-		this.nbCellsOlderThanThreshold++;
-	}
-	return Math.round(
-		((double)this.nbCellsOlderThanThreshold / 
-			(double)this.nbCells) * 100 * 100) / 100.0;
+    double getMetricValue() {
+	this.nbCellsOlderThanThreshold = getCounters().getNbTooOldCells();
+	return ((double)this.nbCellsOlderThanThreshold / 
+		(double)this.nbCells) * 100;
     }
 
 }
@@ -16,12 +16,12 @@ extends AbstractConnectedComponentsMetric {
 
     @Override
     void initializeMetric() {
+	this.decimals = 0;
     }
 
     @Override
-    Object getMetricValue() {
-	this.updateConnectedComponents();
-	return this.cc.getConnectedComponentsCount();
+    double getMetricValue() {
+	return this.getConnectedComponents().getNbComponents();
     }
 
 }
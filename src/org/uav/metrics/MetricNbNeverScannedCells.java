@@ -1,10 +1,5 @@
 package org.uav.metrics;
 
-import java.util.ArrayList;
-
-import org.graphstream.graph.Node;
-import org.uav.area.RectangularSimulationArea;
-import org.uav.area.RectangularSimulationAreaIterator;
 import org.uav.simulation.Simulation;
 
 /**
@@ -26,20 +21,10 @@ public class MetricNbNeverScannedCells extends AbstractAreaMetric {
     }
 
     @Override
-    Object getMetricValue() {
-	this.nbNeverScanned = 0;
-	RectangularSimulationAreaIterator it = 
-		new RectangularSimulationAreaIterator(
-			(RectangularSimulationArea) area);
-	while (it.hasNext()){
-	    Node n = it.next();
-	    ArrayList<Integer> list = 
-		    (ArrayList<Integer>)n.getAttribute("scanTime");
-	    if (list.isEmpty())
-		this.nbNeverScanned++;
-	}
-	return Math.round(((double)this.nbNeverScanned / 
-		(double)this.nbCells) * 100 * 100) /100.0;
+    double getMetricValue() {
+	this.nbNeverScanned = getCounters().getNbNeverScannedCells();
+	return ((double)this.nbNeverScanned / 
+		(double)this.nbCells) * 100;
     }
 
 }
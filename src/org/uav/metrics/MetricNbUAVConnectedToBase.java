@@ -1,16 +1,11 @@
 package org.uav.metrics;
 
-import java.util.Iterator;
-
-import org.graphstream.algorithm.ConnectedComponents.ConnectedComponent;
-import org.graphstream.graph.BreadthFirstIterator;
-import org.graphstream.graph.Node;
-
 import org.uav.simulation.Simulation;
 
 /**
  * A class to compute the percentage of UAVs connected to the base station,
  * i.e. the UAVs in the connected component containing the base station.
+ * It is read from the number of hops to the base kept by the UAV graph.
  * @author Julien Schleich
  *
  */
@@ -26,19 +21,9 @@ extends AbstractConnectedComponentsMetric {
     }
 
     @Override
-    Object getMetricValue() {
-	Node baseNode = simu.uavGraph.getUavGraph().getNode("base");
-	BreadthFirstIterator<Node> it = 
-		new BreadthFirstIterator<Node>(baseNode);
-	int cpt = 0;
-	while (it.hasNext()){
-	    cpt ++;
-	    it.next();
-	}
-
-	return Math.round((double)(cpt-1) / 
-		(double)(simu.uavGraph.getUavGraph().getNodeCount()-1) * 
-		100 * 100) / 100.0;
+    double getMetricValue() {
+	return (double)simu.uavGraph.getNbUAVConnectedToBase() / 
+		(double)(simu.uavGraph.getNbNodes()-1) * 100;
     }
 
 }
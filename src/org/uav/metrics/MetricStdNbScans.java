@@ -1,11 +1,5 @@
 package org.uav.metrics;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import org.graphstream.graph.Node;
-import org.uav.area.RectangularSimulationArea;
-import org.uav.area.RectangularSimulationAreaIterator;
 import org.uav.simulation.Simulation;
 
 /**
@@ -26,19 +20,8 @@ public class MetricStdNbScans extends AbstractAreaMetric {
     }
 
     @Override
-    Object getMetricValue() {
-	this.stdScans = 0;	
-	RectangularSimulationAreaIterator it = 
-		new RectangularSimulationAreaIterator(
-			(RectangularSimulationArea) area);
-	List<Integer> valuesList = new ArrayList<Integer>();
-	while (it.hasNext()){
-	    Node n = it.next();
-	    ArrayList<Integer> list = 
-		    (ArrayList<Integer>)n.getAttribute("scanTime");
-	    valuesList.add(list.size());
-	}
-	this.stdScans = Math.round(ListsStats.std(valuesList) *100) /100.0;
+    double getMetricValue() {
+	this.stdScans = getCounters().getStdNbScans();
 	return this.stdScans;
     }
 
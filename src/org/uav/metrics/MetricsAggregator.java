@@ -0,0 +1,373 @@
+package org.uav.metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Merges on the fly the samples of concurrent runs, e.g. the seeds of a
+ * batch, instead of averaging their CSV files afterwards. The samples are
+ * grouped by configuration, the parameters of a run but its seed, and by
+ * time bucket. Each run gives one value per metric and bucket, the mean
+ * of its samples in the bucket, so that the runs are the independent
+ * observations whatever the bucket width and the sampling frequency. Each
+ * metric of each group is summarised over the runs by a
+ * {@link RunningStats} (count, mean, variance, min and max) and a
+ * {@link QuantileSketch}, so that confidence bands are given directly
+ * whatever the number of runs, without keeping their samples.
+ * Each run writes through its own sink, given by
+ * {@link #newSink(String)}, which averages its samples and gives them
+ * once the run is over, a failed run giving none. The number of runs of
+ * each configuration which completed or failed is written along. The
+ * values which are not a number, e.g. a ratio over no UAV, are left out.
+ * @author Julien Schleich
+ *
+ */
+public class MetricsAggregator {
+
+    /**
+     * @author Julien Schleich
+     * The summaries of the metrics in one time bucket of a configuration
+     */
+    protected static class Bucket {
+	/** The moments of each metric */
+	protected RunningStats[] stats;
+	/** The distribution of each metric */
+	protected QuantileSketch[] sketches;
+
+	protected Bucket(int nbMetrics, double compression){
+	    this.stats = new RunningStats[nbMetrics];
+	    this.sketches = new QuantileSketch[nbMetrics];
+	    for (int i = 0; i < nbMetrics; i++){
+		this.stats[i] = new RunningStats();
+		this.sketches[i] = new QuantileSketch(compression);
+	    }
+	}
+    }
+
+    /** The default quantiles written */
+    public static final double[] DEFAULT_QUANTILES =
+	{0.05, 0.25, 0.5, 0.75, 0.95};
+
+    /** The names of the metrics, null until a first run opens its sink */
+    private List<String> names;
+    /** The buckets of each configuration, by start time */
+    private Map<String, TreeMap<Integer, Bucket>> series;
+    /** The number of runs of each configuration which completed */
+    private Map<String, Integer> nbRuns;
+    /** The number of runs of each configuration which failed */
+    private Map<String, Integer> nbFailedRuns;
+
+    /** The number of timesteps of a bucket */
+    private int bucketWidth = 1;
+    /** The compression of the quantile sketches */
+    private double compression = QuantileSketch.DEFAULT_COMPRESSION;
+    /** The quantiles written */
+    private double[] quantiles = DEFAULT_QUANTILES;
+    /** The number of standard errors of the half confidence interval */
+    private double confidenceZ = 1.96;
+
+    /**
+     * Constructor
+     */
+    public MetricsAggregator(){
+	this.series = new TreeMap<String, TreeMap<Integer, Bucket>>();
+	this.nbRuns = new TreeMap<String, Integer>();
+	this.nbFailedRuns = new TreeMap<String, Integer>();
+    }
+
+    /**
+     * @param configuration the name of the configuration of a run
+     * @return a new sink giving the samples of the run to this aggregator
+     */
+    public AbstractMetricsSink newSink(String configuration){
+	return new AggregatingMetricsSink(this, configuration);
+    }
+
+    /**
+     * Sets the names of the metrics, which must be the same for all runs
+     * @param names the names of the columns, the time first
+     * @throws IOException if they differ from those of a previous run
+     */
+    synchronized void setNames(List<String> names) throws IOException {
+	List<String> metricNames =
+		new ArrayList<String>(names.subList(1, names.size()));
+	if (this.names == null)
+	    this.names = metricNames;
+	else if (!this.names.equals(metricNames))
+	    throw new IOException(
+		    "The metrics differ from those of the previous runs");
+    }
+
+    /**
+     * Adds the values of a run in a time bucket, which must be given once
+     * per run and bucket for the count and the confidence interval to be
+     * over the runs, as the sinks of {@link #newSink(String)} do
+     * @param configuration the name of the configuration of the run
+     * @param time a timestep of the bucket
+     * @param values the value of each metric
+     */
+    public void add(String configuration, int time, double[] values){
+	TreeMap<Integer, Bucket> buckets;
+	synchronized (this){
+	    buckets = series.get(configuration);
+	    if (buckets == null){
+		buckets = new TreeMap<Integer, Bucket>();
+		series.put(configuration, buckets);
+	    }
+	}
+	/** The runs of different configurations do not wait for each other */
+	synchronized (buckets){
+	    int start = getBucketStart(time);
+	    Bucket bucket = buckets.get(start);
+	    if (bucket == null){
+		bucket = new Bucket(values.length, compression);
+		buckets.put(start, bucket);
+	    }
+	    for (int i = 0; i < values.length; i++){
+		if (Double.isNaN(values[i]))
+		    continue;
+		bucket.stats[i].add(values[i]);
+		bucket.sketches[i].add(values[i]);
+	    }
+	}
+    }
+
+    /**
+     * Counts a run whose values were all added
+     * @param configuration the name of the configuration of the run
+     */
+    public synchronized void runCompleted(String configuration){
+	increment(nbRuns, configuration);
+    }
+
+    /**
+     * Counts a run which failed, none of its values being added
+     * @param configuration the name of the configuration of the run
+     */
+    public synchronized void runFailed(String configuration){
+	increment(nbFailedRuns, configuration);
+    }
+
+    /**
+     * @param counts numbers by configuration
+     * @param configuration the configuration whose number is incremented
+     */
+    private static void increment(Map<String, Integer> counts,
+	    String configuration){
+	Integer count = counts.get(configuration);
+	counts.put(configuration, (count == null) ? 1 : count + 1);
+    }
+
+    /**
+     * @param time a timestep
+     * @return the first timestep of its bucket
+     */
+    public int getBucketStart(int time){
+	return Math.floorDiv(time, bucketWidth) * bucketWidth;
+    }
+
+    /**
+     * Writes the summaries in a CSV file, one line per configuration, time
+     * bucket and metric, with the number of runs of the configuration
+     * which completed and failed, the number of runs with a value in the
+     * bucket, their mean, its confidence interval and the quantiles. A
+     * configuration whose runs all failed has a single line, without time
+     * nor metric. To be called once the runs are over.
+     * @param fileName the name of the file
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void write(String fileName) throws IOException {
+	BufferedWriter out = new BufferedWriter(new FileWriter(fileName));
+	try {
+	    StringBuilder line = new StringBuilder(
+		    "configuration,time,metric,runs,failedRuns,count,mean,"+
+		    "std,min,max,ciLow,ciHigh");
+	    for (double q : quantiles)
+		line.append(",q").append(q);
+	    out.write(line.append('\n').toString());
+	    for (String config : getConfigurations()){
+		TreeMap<Integer, Bucket> buckets = series.get(config);
+		String runs = getNbRuns(config)+","+getNbFailedRuns(config);
+		if ((buckets == null) || buckets.isEmpty()){
+		    out.write(config+",,,"+runs+'\n');
+		    continue;
+		}
+		for (Entry<Integer, Bucket> bucket : buckets.entrySet()){
+		    for (int i = 0; i < names.size(); i++){
+			RunningStats stats = bucket.getValue().stats[i];
+			QuantileSketch sketch = bucket.getValue().sketches[i];
+			double halfInterval = confidenceZ * stats.getStd() /
+				Math.sqrt(stats.getCount());
+			line.setLength(0);
+			line.append(config).append(',')
+			.append(bucket.getKey()).append(',')
+			.append(names.get(i)).append(',')
+			.append(runs).append(',')
+			.append(stats.getCount()).append(',')
+			.append(stats.getMean()).append(',')
+			.append(stats.getStd()).append(',')
+			.append(stats.getMin()).append(',')
+			.append(stats.getMax()).append(',')
+			.append(stats.getMean() - halfInterval).append(',')
+			.append(stats.getMean() + halfInterval);
+			for (double q : quantiles)
+			    line.append(',').append(sketch.quantile(q));
+			out.write(line.append('\n').toString());
+		    }
+		}
+	    }
+	}
+	finally {
+	    out.close();
+	}
+    }
+
+    /*********************************************
+     *
+     * Getters / Setters
+     *
+     ********************************************/
+
+    /**
+     * @return the names of the configurations which have samples or runs,
+     * sorted
+     */
+    public synchronized List<String> getConfigurations() {
+	TreeSet<String> configurations = new TreeSet<String>(series.keySet());
+	configurations.addAll(nbRuns.keySet());
+	configurations.addAll(nbFailedRuns.keySet());
+	return new ArrayList<String>(configurations);
+    }
+
+    /**
+     * @param configuration the name of a configuration
+     * @return the number of its runs which completed
+     */
+    public synchronized int getNbRuns(String configuration) {
+	Integer count = nbRuns.get(configuration);
+	return (count == null) ? 0 : count;
+    }
+
+    /**
+     * @param configuration the name of a configuration
+     * @return the number of its runs which failed
+     */
+    public synchronized int getNbFailedRuns(String configuration) {
+	Integer count = nbFailedRuns.get(configuration);
+	return (count == null) ? 0 : count;
+    }
+
+    /**
+     * @return the names of the metrics, null before the first run
+     */
+    public synchronized List<String> getNames() {
+	return names;
+    }
+
+    /**
+     * @param configuration the name of a configuration
+     * @param time a timestep
+     * @param metric the place of the metric in the names
+     * @return the moments of the metric in the bucket of the timestep,
+     * null if no sample was given for it
+     */
+    public RunningStats getStats(String configuration, int time,
+	    int metric) {
+	Bucket bucket = getBucket(configuration, time);
+	return (bucket == null) ? null : bucket.stats[metric];
+    }
+
+    /**
+     * @param configuration the name of a configuration
+     * @param time a timestep
+     * @param metric the place of the metric in the names
+     * @return the distribution of the metric in the bucket of the
+     * timestep, null if no sample was given for it
+     */
+    public QuantileSketch getSketch(String configuration, int time,
+	    int metric) {
+	Bucket bucket = getBucket(configuration, time);
+	return (bucket == null) ? null : bucket.sketches[metric];
+    }
+
+    /**
+     * @param configuration the name of a configuration
+     * @param time a timestep
+     * @return the bucket of the timestep, null if there is none
+     */
+    protected synchronized Bucket getBucket(String configuration, int time){
+	TreeMap<Integer, Bucket> buckets = series.get(configuration);
+	if (buckets == null)
+	    return null;
+	synchronized (buckets){
+	    return buckets.get(getBucketStart(time));
+	}
+    }
+
+    /**
+     * @return the bucketWidth
+     */
+    public int getBucketWidth() {
+	return bucketWidth;
+    }
+
+    /**
+     * @param bucketWidth the number of timesteps of a bucket, to be set
+     * before the first sample
+     */
+    public void setBucketWidth(int bucketWidth) {
+	this.bucketWidth = bucketWidth;
+    }
+
+    /**
+     * @return the compression
+     */
+    public double getCompression() {
+	return compression;
+    }
+
+    /**
+     * @param compression the compression of the quantile sketches, to be
+     * set before the first sample
+     */
+    public void setCompression(double compression) {
+	this.compression = compression;
+    }
+
+    /**
+     * @return the quantiles
+     */
+    public double[] getQuantiles() {
+	return quantiles;
+    }
+
+    /**
+     * @param quantiles the quantiles to write, between 0 and 1
+     */
+    public void setQuantiles(double[] quantiles) {
+	this.quantiles = quantiles;
+    }
+
+    /**
+     * @return the confidenceZ
+     */
+    public double getConfidenceZ() {
+	return confidenceZ;
+    }
+
+    /**
+     * @param confidenceZ the number of standard errors of the half
+     * confidence interval, 1.96 for 95% under the normal approximation
+     */
+    public void setConfidenceZ(double confidenceZ) {
+	this.confidenceZ = confidenceZ;
+    }
+
+}
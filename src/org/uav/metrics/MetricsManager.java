@@ -1,30 +1,33 @@
 package org.uav.metrics;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 
-import org.graphstream.graph.Node;
+import org.uav.area.CoverageCounters;
+import org.uav.area.PheromoneField;
+import org.uav.area.RectangularSimulationArea;
+import org.uav.area.ScanLog;
 import org.uav.simulation.Simulation;
 
 /** 
  * A class to manage the required metrics, get the last metric values and 
- * output everything in a buffer
+ * output them to every {@link AbstractMetricsSink} added
  * @author Julien Schleich
  *
  */
 public class MetricsManager {
     /** The collection of the required metrics */
-    private Collection<AbstractMetric> metrics;
-    /** The collection of the current values of the aforementioned metrics */
-    private Collection<Object> currentValues;
+    private List<AbstractMetric> metrics;
+    /** The current values of the aforementioned metrics, one per slot */
+    private double[] currentValues;
+    /** The number of decimals of each metric */
+    private int[] decimals;
 
     /** The considered simulation */
     private Simulation simu;
-    /** The buffer to write the results */
-    private BufferedWriter outStats;
+    /** The outputs of the results */
+    private List<AbstractMetricsSink> sinks;
 
     /** No default constructor */
     @SuppressWarnings("unused")
@@ -34,83 +37,126 @@ public class MetricsManager {
     public MetricsManager(Simulation simu){
 	this.simu = simu;
 	this.metrics = new ArrayList<AbstractMetric>();
-	this.currentValues = new ArrayList<Object>();
-	FileWriter fstream;
-	try {
-	    if (this.simu.statsFile== null)
-		fstream = new FileWriter("noname.stats");
-	    else
-		fstream = new FileWriter(this.simu.statsFile+".csv");
-	    this.outStats = new BufferedWriter(fstream);
-	} catch (IOException e) {
-	    System.out.println(
-		    "An error occured when attempting to open the stats file");
-	}
+	this.currentValues = new double[0];
+	this.decimals = new int[0];
+	this.sinks = new ArrayList<AbstractMetricsSink>();
+
+	PheromoneField field = 
+		((RectangularSimulationArea)simu.getArea()).getPheromoneField();
+	field.fill(-simu.getTooOld());
+	/** The area metrics read counters kept up to date by the ACO */
+	field.setCounters(new CoverageCounters(field, simu.getTooOld()));
+	/** The scan history of the cells */
+	((RectangularSimulationArea)simu.getArea()).setScanLog(
+		new ScanLog(field.getNbCells(), simu.isKeepScanEvents()));
+    }
 
-	int stepX = (simu.getMaxX())/simu.getGranularity();
-	int stepY = (simu.getMaxY())/simu.getGranularity();
-	for (int i=0; i<stepX; i+=1){
-	    for(int j=0; j<stepY; j+=1){
-		Node n = simu.getG().getNode(i+"-"+j);
-		if (simu.isUseLastUAVId())
-		    n.setAttribute("lastUAV", Integer.MIN_VALUE);
-		if (simu.isUseScanTimes())
-		    n.setAttribute("scanTime", new ArrayList<Integer>());
-		n.setAttribute("pheromone", Double.valueOf(-simu.getTooOld()));
-	    }
-	}
+    /**
+     * Adds an output of the results, to be done before the title line
+     * @param sink the output
+     */
+    public void addSink(AbstractMetricsSink sink){
+	this.sinks.add(sink);
     }
 
+    /**
+     * Opens the outputs with the names of the metrics and the parameters
+     * of the simulation
+     */
     public void addTitleLineToFile(){
-	try {
-	    this.outStats.write(this.getMetricsNames()+'\n');
-	} catch (IOException e) {
-	    e.printStackTrace();
+	List<String> names = new ArrayList<String>();
+	names.add("time");
+	for (AbstractMetric curMetric : this.metrics)
+	    names.add(curMetric.name);
+	prepareSlots();
+	for (AbstractMetricsSink sink : this.sinks){
+	    try {
+		sink.open(names, decimals, simu.getParameters());
+	    } catch (IOException e) {
+		System.out.println(
+			"An error occured when attempting to open the stats file");
+	    }
 	}
     }
 
     public String getMetricsNames(){
-	String names = new String("time"+',');
-	for (AbstractMetric curMetric : this.metrics){
-	    names += curMetric.name+',';
-	}
-	return names.substring(0, names.length()-1);
+	StringBuilder names = new StringBuilder("time");
+	for (AbstractMetric curMetric : this.metrics)
+	    names.append(',').append(curMetric.name);
+	return names.toString();
     }
 
-    public void updateMetricsValues(){
-	this.currentValues.clear();
-	for (AbstractMetric curMetric : this.metrics){
-	    this.currentValues.add(curMetric.getMetricValue());
+    /**
+     * Sizes the slots of the values to the metrics
+     */
+    private void prepareSlots(){
+	if (currentValues.length != metrics.size()){
+	    currentValues = new double[metrics.size()];
+	    decimals = new int[metrics.size()];
 	}
+	for (int i = 0; i < metrics.size(); i++)
+	    decimals[i] = metrics.get(i).getDecimals();
+    }
+
+    /**
+     * Samples every metric in its slot, without allocating
+     * @return the current values, one slot per metric
+     */
+    public double[] updateMetricsValues(){
+	if (currentValues.length != metrics.size())
+	    prepareSlots();
+	for (int i = 0; i < metrics.size(); i++)
+	    currentValues[i] = metrics.get(i).getMetricValue();
+	return currentValues;
     }
 
     public String getMetricsValuesToString(){
 	updateMetricsValues();
-	String str = new String();
-	for (Object curValue : this.currentValues){
-	    str += curValue.toString()+",";
-	}
+	StringBuilder str = new StringBuilder();
+	for (int i = 0; i < currentValues.length; i++)
+	    CSVMetricsSink.appendValue(str, currentValues[i], decimals[i])
+	    .append(',');
 	/** Removal of the extra ',' character */
-	return str.substring(0, str.length()-1);
+	str.setLength(Math.max(0, str.length()-1));
+	return str.toString();
     }
 
-    public String appendCurrentValuesToFile(){
-	String str = getMetricsValuesToString();
-	str = (simu.getBigCpt()-simu.getWarmingSteps())+","+str;
-	try {
-	    this.outStats.append(str+"\n");
-	} catch (IOException e) {
-	    System.out.println("An error occured when attempting to write in the stats file");
+    /**
+     * Gives the current values of the metrics to every output
+     */
+    public void appendCurrentValuesToFile(){
+	updateMetricsValues();
+	int time = simu.getBigCpt()-simu.getWarmingSteps();
+	for (int i = 0; i < sinks.size(); i++){
+	    try {
+		sinks.get(i).write(time, currentValues);
+	    } catch (IOException e) {
+		System.out.println("An error occured when attempting to write in the stats file");
+	    }
 	}
-	return str;
     }
 
     public void closeFile(){
-	try {
-	    this.outStats.close();
-	} catch (IOException e) {
-	    System.out.println("An error occured when attempting to close the stats file");
+	for (AbstractMetricsSink sink : this.sinks){
+	    try {
+		sink.close();
+	    } catch (IOException e) {
+		System.out.println("An error occured when attempting to close the stats file");
+	    }
+	}
+    }
 
+    /**
+     * Closes the outputs of a run which failed, see 
+     * {@link AbstractMetricsSink#abort()}
+     */
+    public void abortFile(){
+	for (AbstractMetricsSink sink : this.sinks){
+	    try {
+		sink.abort();
+	    } catch (IOException e) {
+		System.out.println("An error occured when attempting to close the stats file");
+	    }
 	}
     }
     public void addMetric(AbstractMetric m){
@@ -0,0 +1,294 @@
+package org.uav.metrics;
+
+import java.util.Arrays;
+
+/**
+ * An approximation of the distribution of a stream of values, to estimate
+ * its quantiles without keeping the values, in the manner of the merging
+ * t-digest of Dunning. The values are summarised by centroids (a mean and
+ * a weight) sorted by mean: the new values are buffered, then merged with
+ * the centroids in a single sorted pass, a centroid growing only while
+ * its weight stays under 4 * n * q * (1 - q) / compression, q being its
+ * quantile. The centroids are therefore small near the tails, where the
+ * quantiles are the most sensitive, and their number only grows with the
+ * logarithm of the number of values, about compression * ln(n) / 2. Two 
+ * sketches can be merged, e.g. those of several runs. The arrays start
+ * small and grow with the values, the buffer up to 5 * compression
+ * values, so that a sketch of a few values, e.g. one per run in a time
+ * bucket, stays small.
+ * @author Julien Schleich
+ *
+ */
+public class QuantileSketch {
+
+    /** The default compression */
+    public static final double DEFAULT_COMPRESSION = 100;
+    /** The initial capacity of the arrays */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** The compression, the higher the more accurate and the bigger */
+    private double compression;
+
+    /** The means of the centroids, sorted */
+    private double[] means;
+    /** The weights of the centroids */
+    private double[] weights;
+    /** The number of centroids */
+    private int nbCentroids;
+    /** The arrays receiving the centroids of the next merge */
+    private double[] spareMeans;
+    private double[] spareWeights;
+
+    /** The values not merged yet, with their weights */
+    private double[] bufferMeans;
+    private double[] bufferWeights;
+    /** The number of values not merged yet */
+    private int bufferSize;
+    /** The number of values buffered before a merge */
+    private int maxBufferSize;
+
+    /** The total weight, the buffer included */
+    private double totalWeight;
+    /** The smallest value */
+    private double min = Double.POSITIVE_INFINITY;
+    /** The largest value */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Constructor with the default compression
+     */
+    public QuantileSketch(){
+	this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructor
+     * @param compression the compression, the higher the more accurate
+     */
+    public QuantileSketch(double compression){
+	this.compression = compression;
+	this.maxBufferSize = Math.max(10, (int)(5 * compression));
+	int capacity = Math.min(INITIAL_CAPACITY, maxBufferSize);
+	this.bufferMeans = new double[capacity];
+	this.bufferWeights = new double[capacity];
+	this.means = new double[capacity];
+	this.weights = new double[capacity];
+	this.spareMeans = new double[capacity];
+	this.spareWeights = new double[capacity];
+    }
+
+    /**
+     * Adds a value
+     * @param value the value
+     */
+    public void add(double value){
+	add(value, 1);
+    }
+
+    /**
+     * Adds a value several times
+     * @param value the value
+     * @param weight the number of times, positive
+     */
+    public void add(double value, double weight){
+	if (bufferSize == bufferMeans.length){
+	    if (bufferSize < maxBufferSize){
+		int capacity = Math.min(maxBufferSize, 2 * bufferSize);
+		bufferMeans = Arrays.copyOf(bufferMeans, capacity);
+		bufferWeights = Arrays.copyOf(bufferWeights, capacity);
+	    }
+	    else
+		compress();
+	}
+	bufferMeans[bufferSize] = value;
+	bufferWeights[bufferSize] = weight;
+	bufferSize++;
+	totalWeight += weight;
+	if (value < min)
+	    min = value;
+	if (value > max)
+	    max = value;
+    }
+
+    /**
+     * Adds every value summarised by another sketch, which is unchanged
+     * @param other the other sketch
+     */
+    public void merge(QuantileSketch other){
+	for (int i = 0; i < other.nbCentroids; i++)
+	    add(other.means[i], other.weights[i]);
+	for (int i = 0; i < other.bufferSize; i++)
+	    add(other.bufferMeans[i], other.bufferWeights[i]);
+	/** The extremes may have been merged into centroids */
+	if (other.totalWeight > 0){
+	    min = Math.min(min, other.min);
+	    max = Math.max(max, other.max);
+	}
+    }
+
+    /**
+     * Merges the buffered values into the centroids
+     */
+    public void compress(){
+	if (bufferSize == 0)
+	    return;
+	sortBuffer();
+	int capacity = nbCentroids + bufferSize;
+	if (spareMeans.length < capacity){
+	    capacity = Math.max(capacity, 2 * spareMeans.length);
+	    spareMeans = new double[capacity];
+	    spareWeights = new double[capacity];
+	}
+	double[] newMeans = spareMeans;
+	double[] newWeights = spareWeights;
+	int i = 0;
+	int j = 0;
+	int last = -1;
+	/** The weight of the centroids before the last one */
+	double before = 0;
+	while ((i < nbCentroids) || (j < bufferSize)){
+	    double m;
+	    double w;
+	    if ((j == bufferSize) ||
+		    ((i < nbCentroids) && (means[i] <= bufferMeans[j]))){
+		m = means[i];
+		w = weights[i++];
+	    }
+	    else {
+		m = bufferMeans[j];
+		w = bufferWeights[j++];
+	    }
+	    if (last >= 0){
+		double proposed = newWeights[last] + w;
+		double q = (before + proposed / 2) / totalWeight;
+		if (proposed <= 4 * totalWeight * q * (1 - q) / compression){
+		    newMeans[last] += (m - newMeans[last]) * w / proposed;
+		    newWeights[last] = proposed;
+		    continue;
+		}
+		before += newWeights[last];
+	    }
+	    last++;
+	    newMeans[last] = m;
+	    newWeights[last] = w;
+	}
+	spareMeans = means;
+	spareWeights = weights;
+	means = newMeans;
+	weights = newWeights;
+	nbCentroids = last + 1;
+	bufferSize = 0;
+    }
+
+    /**
+     * Sorts the buffered values by increasing value, with a shell sort
+     * which keeps each weight with its value
+     */
+    private void sortBuffer(){
+	for (int gap = bufferSize / 2; gap > 0; gap /= 2){
+	    for (int i = gap; i < bufferSize; i++){
+		double m = bufferMeans[i];
+		double w = bufferWeights[i];
+		int j = i;
+		while ((j >= gap) && (bufferMeans[j - gap] > m)){
+		    bufferMeans[j] = bufferMeans[j - gap];
+		    bufferWeights[j] = bufferWeights[j - gap];
+		    j -= gap;
+		}
+		bufferMeans[j] = m;
+		bufferWeights[j] = w;
+	    }
+	}
+    }
+
+    /**
+     * Estimates a quantile by interpolating between the centers of the
+     * centroids, and between the extreme centroids and the extreme values
+     * @param q the quantile, between 0 and 1
+     * @return the estimated value, NaN without any value
+     */
+    public double quantile(double q){
+	if (totalWeight == 0)
+	    return Double.NaN;
+	compress();
+	q = Math.max(0, Math.min(1, q));
+	if (nbCentroids == 1)
+	    return means[0];
+	double target = q * totalWeight;
+
+	/** Before the center of the first centroid */
+	double half = weights[0] / 2;
+	if (target <= half)
+	    return min + (means[0] - min) * target / half;
+
+	/** Between the centers of two centroids */
+	double center = half;
+	for (int i = 0; i < nbCentroids - 1; i++){
+	    double next = center + (weights[i] + weights[i + 1]) / 2;
+	    if (target <= next)
+		return means[i] + (means[i + 1] - means[i]) *
+			(target - center) / (next - center);
+	    center = next;
+	}
+
+	/** After the center of the last centroid */
+	half = weights[nbCentroids - 1] / 2;
+	double value = means[nbCentroids - 1] +
+		(max - means[nbCentroids - 1]) * (target - center) / half;
+	return Math.min(max, value);
+    }
+
+    /**
+     * Forgets every value
+     */
+    public void clear(){
+	nbCentroids = 0;
+	bufferSize = 0;
+	totalWeight = 0;
+	min = Double.POSITIVE_INFINITY;
+	max = Double.NEGATIVE_INFINITY;
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the compression
+     */
+    public double getCompression() {
+	return compression;
+    }
+
+    /**
+     * @return the total weight of the values
+     */
+    public double getTotalWeight() {
+	return totalWeight;
+    }
+
+    /**
+     * @return the number of centroids, once the buffer is merged
+     */
+    public int getNbCentroids() {
+	compress();
+	return nbCentroids;
+    }
+
+    /**
+     * @return the smallest value, NaN without any value
+     */
+    public double getMin() {
+	return (totalWeight == 0) ? Double.NaN : min;
+    }
+
+    /**
+     * @return the largest value, NaN without any value
+     */
+    public double getMax() {
+	return (totalWeight == 0) ? Double.NaN : max;
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.uav.metrics;
+
+/**
+ * The count, mean, variance, minimum and maximum of a stream of values,
+ * computed in a single pass without keeping the values. The mean and the
+ * sum of the squared deviations are updated with Welford's algorithm,
+ * which stays accurate where the sum of the squares would lose the
+ * variance in the rounding of large values. Two instances can be merged,
+ * e.g. the values of several runs summarised separately.
+ * @author Julien Schleich
+ *
+ */
+public class RunningStats {
+
+    /** The number of values */
+    private long count;
+    /** The mean of the values */
+    private double mean;
+    /** The sum of the squared deviations to the mean */
+    private double m2;
+    /** The smallest value */
+    private double min = Double.POSITIVE_INFINITY;
+    /** The largest value */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Adds a value
+     * @param value the value
+     */
+    public void add(double value){
+	count++;
+	double delta = value - mean;
+	mean += delta / count;
+	m2 += delta * (value - mean);
+	if (value < min)
+	    min = value;
+	if (value > max)
+	    max = value;
+    }
+
+    /**
+     * Adds every value summarised by another instance, which is unchanged
+     * @param other the other summary
+     */
+    public void merge(RunningStats other){
+	if (other.count == 0)
+	    return;
+	if (count == 0){
+	    count = other.count;
+	    mean = other.mean;
+	    m2 = other.m2;
+	    min = other.min;
+	    max = other.max;
+	    return;
+	}
+	long total = count + other.count;
+	double delta = other.mean - mean;
+	mean += delta * other.count / total;
+	m2 += other.m2 + delta * delta * ((double)count * other.count / total);
+	count = total;
+	min = Math.min(min, other.min);
+	max = Math.max(max, other.max);
+    }
+
+    /**
+     * Forgets every value
+     */
+    public void clear(){
+	count = 0;
+	mean = 0;
+	m2 = 0;
+	min = Double.POSITIVE_INFINITY;
+	max = Double.NEGATIVE_INFINITY;
+    }
+
+    /*********************************************
+     *
+     * Getters
+     *
+     ********************************************/
+
+    /**
+     * @return the number of values
+     */
+    public long getCount() {
+	return count;
+    }
+
+    /**
+     * @return the mean, NaN without any value
+     */
+    public double getMean() {
+	return (count == 0) ? Double.NaN : mean;
+    }
+
+    /**
+     * @return the sample variance, NaN with less than two values
+     */
+    public double getVariance() {
+	return (count < 2) ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * @return the sample standard deviation, NaN with less than two values
+     */
+    public double getStd() {
+	return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return the population variance, NaN without any value
+     */
+    public double getPopulationVariance() {
+	return (count == 0) ? Double.NaN : m2 / count;
+    }
+
+    /**
+     * @return the smallest value, NaN without any value
+     */
+    public double getMin() {
+	return (count == 0) ? Double.NaN : min;
+    }
+
+    /**
+     * @return the largest value, NaN without any value
+     */
+    public double getMax() {
+	return (count == 0) ? Double.NaN : max;
+    }
+
+}
@@ -0,0 +1,27 @@
+package org.uav.simulation;
+
+import org.uav.AbstractUAV;
+
+/**
+ * @author Julien Schleich
+ * An abstract class dealing with the way the UAVs are processed during one
+ * timestep of the main simulation loop, i.e. the order in which they take 
+ * their decisions and move.
+ */
+public abstract class AbstractStepScheduler {
+
+    /**
+     * Processes one timestep for every UAV: local decisions and moves
+     * @param u the UAVs
+     * @param nbUAV the number of UAVs
+     * @throws InterruptedException if interrupted while waiting for the UAVs
+     */
+    public abstract void doStep(AbstractUAV[] u, int nbUAV) 
+	    throws InterruptedException;
+
+    /**
+     * Releases the resources of the scheduler at the end of the simulation
+     */
+    public void shutdown(){}
+
+}
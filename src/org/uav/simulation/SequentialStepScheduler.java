@@ -0,0 +1,20 @@
+package org.uav.simulation;
+
+import org.uav.AbstractUAV;
+
+/**
+ * @author Julien Schleich
+ * The original scheduler: each UAV decides and moves before the next one,
+ * so a UAV sees the moves of the UAVs processed before it during the same
+ * timestep.
+ */
+public class SequentialStepScheduler extends AbstractStepScheduler {
+
+    @Override
+    public void doStep(AbstractUAV[] u, int nbUAV) {
+	for (int i=0; i<nbUAV; i++){
+	    u[i].doSimulationStep();
+	}
+    }
+
+}
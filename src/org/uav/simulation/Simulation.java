@@ -1,14 +1,16 @@
 package org.uav.simulation;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.graphstream.graph.Edge;
-import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.DefaultGraph;
 import org.graphstream.stream.file.FileSinkImages;
-import org.graphstream.stream.file.FileSinkImages.OutputPolicy;
-import org.graphstream.stream.file.FileSinkImages.OutputType;
 import org.graphstream.stream.file.FileSinkImages.Quality;
 import org.graphstream.stream.file.FileSinkImages.RendererType;
 import org.graphstream.stream.file.FileSinkImages.Resolution;
@@ -17,19 +19,27 @@ import org.graphstream.ui.swingViewer.View;
 import org.graphstream.ui.swingViewer.Viewer;
 import org.uav.autopilot.AutopilotFixedWingOutOfSimulationAreaStrategy;
 import org.uav.autopilot.Destination;
+import org.uav.autopilot.TrajectoryPredictionCache;
 import org.uav.AbstractUAV;
 import org.uav.UAVBasicConnectedCoverage;
 import org.uav.UAVBasicPheromoneMovement;
 import org.uav.UAVBasicPheromoneWithRepulsion;
+import org.uav.UAVDistributedPheromoneMovement;
 import org.uav.UAVRandomDestination;
 import org.uav.UAVRandomMovement;
 import org.uav.aco.AbstractACO;
 import org.uav.aco.CentralizedACO;
 import org.uav.aco.DistributedACO;
 import org.uav.area.AbstractSimulationArea;
+import org.uav.area.PheromoneField;
 import org.uav.area.RectangularSimulationArea;
+import org.uav.graph.AsyncFileSinkImages;
+import org.uav.graph.FrameRenderer;
+import org.uav.graph.GraphStreamObserver;
 import org.uav.graph.UAVGraph;
-import org.uav.graph.UAVGraphRepresentationTwoNodes;
+import org.uav.metrics.AbstractMetricsSink;
+import org.uav.metrics.BinaryMetricsSink;
+import org.uav.metrics.CSVMetricsSink;
 import org.uav.metrics.MetricAvgNbScans;
 import org.uav.metrics.MetricGiantConnectedComponent;
 import org.uav.metrics.MetricNbCellsOlderThanThreshold;
@@ -46,6 +56,7 @@ import org.uav.status.Status;
 import org.uav.status.TurnRate;
 import org.uav.wireless.HomogeneousPropagationModel;
 import org.uav.wireless.AbstractPropagationModel;
+import org.uav.wireless.UniformGridIndex;
 
 /**
  * @author Julien Schleich
@@ -56,11 +67,25 @@ import org.uav.wireless.AbstractPropagationModel;
 public class Simulation {
     private boolean display = true;
     private boolean screenshot = false;
+    /** The number of timesteps between two screenshots */
+    private int screenshotFreq = 1;
+    /** The format of the screenshots */
+    private AsyncFileSinkImages.Format screenshotFormat = 
+	    AsyncFileSinkImages.Format.PNG;
+    /** The number of threads encoding the screenshots */
+    private int screenshotThreads = 
+	    Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
 
     /**
-     * Main graph
+     * Main graph, only built when the simulation is shown
      */
     protected DefaultGraph g;
+    /** Mirrors the simulation on the main graph, null if not shown */
+    protected GraphStreamObserver observer;
+    /** Shows the simulation on its own thread, null if not displayed */
+    protected FrameRenderer renderer;
+    /** The maximum number of frames per second shown, 0 for no limit */
+    protected int displayFps = 25;
 
     /**
      * UAV parameters
@@ -69,7 +94,8 @@ public class Simulation {
     protected int nbUAV;
     public UAVGraph uavGraph;
     public AbstractUAV[] u; 
-    public UAVGraphRepresentationTwoNodes[] u_g;
+    /** The distance ahead of a UAV position where its links are computed */
+    protected int bodyLength = 5;
 
     /// Speed
     protected int maxSpeed = 10;
@@ -110,10 +136,18 @@ public class Simulation {
     /// ACO parameters
     protected double evaporationSpeed = 0.01;
     protected int evaporationFreq = 2;
+    /** The number of cells with pheromone from which they evaporate in parallel */
+    protected int evaporationParallelismThreshold = 
+	    PheromoneField.DEFAULT_PARALLELISM_THRESHOLD;
+    /** The number of timesteps between two exchanges of pheromones */
+    protected int pheromoneExchangeFreq = 100;
+    /** The distance within which the pheromones are exchanged, in meters */
+    protected int pheromoneExchangeRadius = 200;
 
     /// Statistics
     protected boolean useScanTimes = true;
     protected boolean useLastUAVId = true;
+    protected boolean keepScanEvents = false;
     protected int tooOld = 20;
     protected int statsFreq = 100;
 
@@ -121,25 +155,55 @@ public class Simulation {
      * Wireless
      */
     protected AbstractPropagationModel propa;
+    /** The spatial index used to find the links between UAVs */
+    protected UniformGridIndex linkIndex;
+    /** The positions of the UAVs considered for the links */
+    protected double[] linkX;
+    protected double[] linkY;
+    /** For each UAV, the sorted linked UAVs with a bigger identifier */
+    protected int[][] links;
+    /** For each UAV, true if it is linked to the base */
+    protected boolean[] linkedToBase;
+    /** Scratch arrays used when refreshing the links */
+    protected int[] candidates;
+    protected int[] newLinks;
 
     /**
      * Ant Colony Optimization
      */
     protected AbstractACO aco;
 
+    /**
+     * Per-simulation parameters and modules shared with the UAVs and ACO
+     */
+    protected SimulationContext context = new SimulationContext();
+
+    /**
+     * The way UAVs decide and move at each timestep
+     */
+    protected AbstractStepScheduler scheduler = new SequentialStepScheduler();
+
     /**
      * Statistics
      */
     protected MetricsManager stats;
     public String statsFile;
+    /** False to write no csv file of the statistics */
+    protected boolean csvStats = true;
+    /** True to also write the statistics in the binary format */
+    protected boolean binaryStats = false;
+    /** Other outputs of the statistics, e.g. to aggregate several runs */
+    protected List<AbstractMetricsSink> statsSinks = 
+	    new ArrayList<AbstractMetricsSink>();
 
 
     /**
      * Initialisation methods
      */
     public void initGraphs(){
-	/** Main graph */
-	g = new DefaultGraph("uavNetwork");
+	/** Main graph, the simulation itself does not need it */
+	if (display || screenshot)
+	    g = new DefaultGraph("uavNetwork");
 	/** UAV graph */
 	uavGraph = new UAVGraph(this);
     }
@@ -169,12 +233,12 @@ public class Simulation {
 
     public FileSinkImages initScreenshotModule() throws IOException{
 	if (this.screenshot){
-	    OutputPolicy outputPolicy = OutputPolicy.NONE;
 	    String prefix = "ph_";
-	    OutputType type = OutputType.PNG;
 	    Resolution resolution = Resolutions.HD720;
-	    FileSinkImages fsi = 
-		    new FileSinkImages(prefix, type, resolution, outputPolicy );
+	    /** The images are rendered here and encoded by other threads */
+	    FileSinkImages fsi = new AsyncFileSinkImages(prefix, 
+		    screenshotFormat, resolution, screenshotThreads, 
+		    2 * screenshotThreads);
 	    fsi.setStyleSheet("url('style.css')");
 	    fsi.setQuality(Quality.HIGH);
 	    fsi.setRenderer(RendererType.SCALA);
@@ -192,7 +256,26 @@ public class Simulation {
 		getMaxY(), getGranularity()); 
 	((RectangularSimulationArea)area).setBaseX(baseX);
 	((RectangularSimulationArea)area).setBaseY(baseY);
+	/** Pheromones are only mirrored on the grid nodes when shown */
+	((RectangularSimulationArea)area).setMirrorOnGraph(display || screenshot);
 	area.generateEnvironment();
+	((RectangularSimulationArea)area).getPheromoneField()
+		.setParallelismThreshold(evaporationParallelismThreshold);
+    }
+
+    public void initObserver(){
+	if (g != null){
+	    observer = new GraphStreamObserver(g, getNbUAV());
+	    /** 
+	     * Only displayed, the graph is updated from frames on another 
+	     * thread, otherwise it follows the simulation step by step
+	     */
+	    if (display && !screenshot)
+		renderer = new FrameRenderer(observer, 
+			(RectangularSimulationArea)area, displayFps);
+	    else
+		uavGraph.setObserver(observer);
+	}
     }
 
     public void initStatisticsModule() {
@@ -205,50 +288,64 @@ public class Simulation {
 	stats.addMetric(new MetricNbConnectedComponents(this));
 	stats.addMetric(new MetricGiantConnectedComponent(this));
 	stats.addMetric(new MetricNbUAVConnectedToBase(this));
+	if (csvStats){
+	    if (statsFile == null)
+		stats.addSink(new CSVMetricsSink("noname.stats"));
+	    else
+		stats.addSink(new CSVMetricsSink(statsFile+".csv"));
+	}
+	if (binaryStats && (statsFile != null))
+	    stats.addSink(new BinaryMetricsSink(statsFile+".bin"));
+	for (AbstractMetricsSink sink : statsSinks)
+	    stats.addSink(sink);
 	stats.addTitleLineToFile();
     }
 
+    public void initContext(){
+	context.setDecisionFrequency(getLocalDecisionFrequency());
+	propa = new HomogeneousPropagationModel(context.getMaxDistance());
+	context.setPropa(propa);
+	context.setPredictionCache(new TrajectoryPredictionCache(getNbUAV()));
+    }
+
     public void initializeUAVs(){
 	u = new AbstractUAV[getNbUAV()];
-	u_g = new UAVGraphRepresentationTwoNodes[getNbUAV()];
 	for (int i=0; i < getNbUAV(); i++)
 	    addUAV(i);
     }
 
     public void initializeACO(){
-	if (	(this.uavType == "UAVBasicConnectedCoverage") ||
-		(this.uavType == "UAVRandomMovement") ||
-		(this.uavType == "UAVRandomDestination") ||
-		(this.uavType == "UAVBasicPheromoneMovement") ||
-		(this.uavType == "UAVBasicPheromoneWithRepulsion")){
+	if (	("UAVBasicConnectedCoverage".equals(this.uavType)) ||
+		("UAVRandomMovement".equals(this.uavType)) ||
+		("UAVRandomDestination".equals(this.uavType)) ||
+		("UAVBasicPheromoneMovement".equals(this.uavType)) ||
+		("UAVBasicPheromoneWithRepulsion".equals(this.uavType))){
 	    aco = new CentralizedACO(this);
 	}
 
-	if (this.uavType == "UAVDistributedPheromoneMovement") {
+	if ("UAVDistributedPheromoneMovement".equals(this.uavType)) {
 	    aco = new DistributedACO(this);
 	}
 
 	for (int i=0; i < getNbUAV(); i++){
-	    if (this.uavType == "UAVBasicConnectedCoverage"){
+	    if ("UAVBasicConnectedCoverage".equals(this.uavType)){
 		UAVBasicConnectedCoverage uav = (UAVBasicConnectedCoverage)u[i];
 		uav.setAco(aco);
 	    }
-	    if (this.uavType == "UAVBasicPheromoneMovement"){
+	    if ("UAVBasicPheromoneMovement".equals(this.uavType)){
 		UAVBasicPheromoneMovement uav = (UAVBasicPheromoneMovement)u[i];
 		uav.setAco(aco);
 	    }
-	    if (this.uavType == "UAVBasicPheromoneWithRepulsion"){
+	    if ("UAVBasicPheromoneWithRepulsion".equals(this.uavType)){
 		UAVBasicPheromoneWithRepulsion uav = 
 			(UAVBasicPheromoneWithRepulsion)u[i];
 		uav.setAco(aco);
 	    }
-	    /** To activate when the related class are finished 
-	    if (this.uavType == "UAVDistributedPheromoneMovement"){
+	    if ("UAVDistributedPheromoneMovement".equals(this.uavType)){
 		UAVDistributedPheromoneMovement uav = 
-		(UAVDistributedPheromoneMovement)u[i];
+			(UAVDistributedPheromoneMovement)u[i];
 		uav.setAco(aco);
 	    }
-	     */
 	}
 
 
@@ -269,73 +366,123 @@ public class Simulation {
 	FileSinkImages fsi = initScreenshotModule();
 	/** Building of the simulation area */
 	initSimulationArea();
+	/** Mirroring of the simulation on the main graph (if needed) */
+	initObserver();
 	/** Initialization of the statistic module */
 	initStatisticsModule();
-	/** Wireless module */
-	propa = new HomogeneousPropagationModel();
+	/** Wireless module and per-simulation context */
+	initContext();
 	/** Initialization of the UAVs */
 	initializeUAVs();
 	/** Initialize Ant Colony Optimization (ACO) module */
 	initializeACO();
+	/** Start of the display (if needed) */
+	if (renderer != null)
+	    renderer.start();
 
 	/**
 	 * Main simulation loop
 	 */
-	boolean alive = true;
-	//System.out.println(stats.getMetricsNames());
-	while (alive){
-	    /** Moving UAVs */
-	    for (int i=0; i<nbUAV; i++){
-		u[i].doSimulationStep();
-	    }
-
-	    /** ACO Part */
-	    if (bigCpt>warmingSteps){
-		for (int i=0; i<nbUAV; i++){
-		    aco.dropPheromone(
-			    null, 
-			    u[i].getAuto().getCurrentStatus().getCurrentPosition(), 
-			    "pheromone", 
-			    u[i].getUavId());
-		}
-		if (bigCpt % evaporationFreq == 0){
-		    aco.evaporation();
+	boolean completed = false;
+	try {
+	    boolean alive = true;
+	    //System.out.println(stats.getMetricsNames());
+	    while (alive){
+		/** Moving UAVs */
+		scheduler.doStep(u, nbUAV);
+
+		/** ACO Part */
+		if (bigCpt>warmingSteps){
+		    for (int i=0; i<nbUAV; i++){
+			aco.dropPheromone(
+				null, 
+				u[i].getAuto().getCurrentStatus().getCurrentPosition(), 
+				"pheromone", 
+				u[i].getUavId());
+		    }
+		    if (bigCpt % evaporationFreq == 0){
+			aco.evaporation();
+		    }
 		}
-	    }
 
-	    /** Refreshing the display */
-	    refreshNodesOnGraph();
-	    refreshLinksOnGraph();
-	    area.refreshDisplay();
+		/** Refreshing the links */
+		refreshLinksOnGraph();
 
-	    /** For display purpose the processing is slowed */
-	    if (display){
-		Thread.sleep(40);
-	    }
+		/** Refreshing the display, frames are dropped rather than waited */
+		boolean shot = screenshot && (bigCpt % screenshotFreq == 0);
+		if (renderer != null)
+		    renderer.offer(bigCpt, u, nbUAV, uavGraph);
+		else if (display || shot){
+		    refreshNodesOnGraph();
+		    area.refreshDisplay();
+		}
 
-	    /** Statistics */		
-	    if (bigCpt>warmingSteps){
-		if (bigCpt % statsFreq == 0){
-		    String str = stats.appendCurrentValuesToFile();
-		    //System.out.println(str);
+		/** Statistics */           
+		if (bigCpt>warmingSteps){
+		    if (bigCpt % statsFreq == 0)
+			stats.appendCurrentValuesToFile();
 		}
-	    }
 
-	    /** For screenshot purpose */
-	    if (screenshot)
-		if (fsi != null)
+		/** For screenshot purpose, one every screenshotFreq timesteps */
+		if (shot && (fsi != null))
 		    fsi.outputNewImage();
 
-	    /** Counters */
-	    bigCpt ++;
-	    if (bigCpt == maxTimesteps)
-		alive = false;
+		/** Counters */
+		bigCpt ++;
+		if (bigCpt == maxTimesteps)
+		    alive = false;
+	    }
+	    completed = true;
+	}
+	finally {
+	    endSimulation(fsi, completed);
 	}
+    }
+
+    /**
+     * Ends a run, even a failed one: waits for the screenshots, stops the
+     * display, closes the statistics and stops the scheduler. Each step
+     * is done whatever the failure of the previous ones, and the failure
+     * of a screenshot is thrown once they are all done. The statistics of
+     * a run which fails, in its loop or on a screenshot, are aborted 
+     * rather than closed.
+     * @param fsi the screenshot module, null if none
+     * @param completed true if the main loop ended normally
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IOException if a screenshot could not be written
+     */
+    protected void endSimulation(FileSinkImages fsi, boolean completed) 
+	    throws InterruptedException, IOException {
+	IOException failure = null;
 	/** For screenshot purpose */
-	if (fsi != null)
-	    fsi.end();
-	/** Closes the stats file */ 
-	stats.closeFile();
+	if (fsi != null){
+	    try {
+		fsi.end();
+	    } catch (IOException e) {
+		failure = e;
+	    }
+	}
+	try {
+	    /** Stops the display once the last timestep is shown */
+	    if (renderer != null){
+		try {
+		    renderer.flush(bigCpt, u, nbUAV, uavGraph);
+		}
+		finally {
+		    renderer.shutdown();
+		}
+	    }
+	}
+	finally {
+	    /** Closes the stats file */ 
+	    if (completed && (failure == null))
+		stats.closeFile();
+	    else
+		stats.abortFile();
+	    scheduler.shutdown();
+	}
+	if (failure != null)
+	    throw failure;
     }
 
 
@@ -364,143 +511,153 @@ public class Simulation {
 	destY = getRand().nextDouble()*getMaxY();
 	AutopilotFixedWingOutOfSimulationAreaStrategy auto = 
 		new AutopilotFixedWingOutOfSimulationAreaStrategy(
-			new Destination(destX, destY, g), 
+			new Destination(destX, destY), 
 			initStatus, area);
 
-	/** Local decision frequency (in simulation steps) */
-	AbstractUAV.setDecisionFrequency(getLocalDecisionFrequency());
-
 	/** The actual UAV instance creation */
-	if (this.uavType == "UAVBasicPheromoneMovement")
+	if ("UAVBasicPheromoneMovement".equals(this.uavType))
 	    u[id] = new UAVBasicPheromoneMovement(auto, id, this.aco);
-	if (this.uavType == "UAVBasicPheromoneWithRepulsion")
+	if ("UAVBasicPheromoneWithRepulsion".equals(this.uavType))
 	    u[id] = new UAVBasicPheromoneWithRepulsion(auto, id, 
 		    this.uavGraph, this.aco);
-	/** To activate when the related classes are finished 
-	if (this.uavType == "UAVDistributedPheromoneMovement")
+	if ("UAVDistributedPheromoneMovement".equals(this.uavType))
 	    u[id] = new UAVDistributedPheromoneMovement(auto, id, 
-	    this.aco, 100, 200);
-	 */
-	if (this.uavType == "UAVRandomMovement")
+		    this.uavGraph, this.aco, getPheromoneExchangeFreq(), 
+		    getPheromoneExchangeRadius() / getGranularity());
+	if ("UAVRandomMovement".equals(this.uavType))
 	    u[id] = new UAVRandomMovement(auto, id);
-	if (this.uavType == "UAVBasicConnectedCoverage") 
+	if ("UAVBasicConnectedCoverage".equals(this.uavType)) 
 	    u[id] = new UAVBasicConnectedCoverage(auto, id, this.uavGraph, 
-		    this.g.getNode("base"), this.aco, 10, 
+		    new Position(getBaseX(), getBaseY()), this.aco, 10, 
 		    getNbTimestepsInTheFuture());
-	if (this.uavType == "UAVRandomDestination")
+	if ("UAVRandomDestination".equals(this.uavType))
 	    u[id] = new UAVRandomDestination(auto, id);
-	if (this.uavType == "UAVRandomMovement")
+	if ("UAVRandomMovement".equals(this.uavType))
 	    u[id] = new UAVRandomMovement(auto, id);
 
+	/** Per-simulation parameters, e.g. the local decision frequency */
+	u[id].setContext(context);
 	u[id].setSeed(getSeed());
 
+	/** The UAV in the graph, without any link yet */
+	this.uavGraph.addNode(u[id]);
 	/** The graph representation of the UAV */
-	u_g[id] = new UAVGraphRepresentationTwoNodes(g, u[id].getUavId());
-	u_g[id].getFront().setAttribute("ui.label", u[id].getUavId());
-
-	/** The initial position of the UAVs */
-	Node n = this.uavGraph.addNode(u[id]);
-	n.setAttribute("x", getBaseX());
-	n.setAttribute("y", getBaseY());
+	if (observer != null)
+	    observer.addUAV(u[id]);
     }
 
     /**
-     * Triggers the refresh on the display of the UAV 
+     * Triggers the refresh on the display of the UAV, nothing is done if
+     * the simulation is not shown or is shown by the renderer
      */
     public void refreshNodesOnGraph(){
-	for (int i=0; i < getNbUAV(); i++){
-	    /** Main graph */
-	    u_g[i].refreshPositionOnGraph(u[i].getAuto().getCurrentStatus());
-	    /** Uav graph */
-	    Node n = this.uavGraph.getUavGraph().getNode("uav"+i);
-	    n.setAttribute(
-		    "x", 
-		    u[i].getAuto().getCurrentStatus().getCurrentPosition().getX());
-	    n.setAttribute(
-		    "y", 
-		    u[i].getAuto().getCurrentStatus().getCurrentPosition().getY());
-	}
+	if ((observer != null) && (renderer == null))
+	    observer.refresh(u, getNbUAV());
     }
 
     /**
-     * Refresh the links between UAVs depending on the propagation model
+     * Initialises the spatial index used to refresh the links. The bucket
+     * size is the maximum communication distance.
+     */
+    public void initLinkIndex(){
+	linkIndex = new UniformGridIndex(0, 0, getMaxX(), getMaxY(), 
+		propa.getMaxDistance(), getNbUAV());
+	linkX = new double[getNbUAV()];
+	linkY = new double[getNbUAV()];
+	links = new int[getNbUAV()][0];
+	linkedToBase = new boolean[getNbUAV()];
+	candidates = new int[getNbUAV()];
+	newLinks = new int[getNbUAV()];
+    }
+
+    /**
+     * Refresh the links between UAVs depending on the propagation model.
+     * Only the UAVs in adjacent buckets of the spatial index are tested, 
+     * and the edges are added or removed by comparing with the links of 
+     * the previous step. A link between two UAVs is handled when visiting 
+     * the smaller identifier, by increasing order of the other identifier.
      */
     public void refreshLinksOnGraph(){
-	Node base = this.area.getG().getNode("base");
-	Node baseUavGraph = this.uavGraph.getUavGraph().getNode("base");
+	if (linkIndex == null)
+	    initLinkIndex();
+	double baseX = (double)getBaseX();
+	double baseY = (double)getBaseY();
+
+	/** The links are computed from the front of the UAVs */
+	for (int i=0; i < getNbUAV(); i++){
+	    Status s = u[i].getAuto().getCurrentStatus();
+	    linkX[i] = s.getPositionX() 
+		    + Math.cos(s.getHeadingValue()) * this.bodyLength;
+	    linkY[i] = s.getPositionY() 
+		    + Math.sin(s.getHeadingValue()) * this.bodyLength;
+	}
+	linkIndex.build(linkX, linkY, getNbUAV());
+
 	for (int i=0; i < getNbUAV(); i++){
-	    Node me = u_g[i].getMainNode();  
-	    int myId = u_g[i].getId();
-	    Node meUavGraph = this.uavGraph.getUavGraph().getNode("uav"+myId);
 	    /** We check if the uav is in sight of the base */
-	    if (HomogeneousPropagationModel.areCloseEnoughToDecode(me, base)){
-		if ( (!me.hasEdgeToward(base)) || (!base.hasEdgeToward(me)) ) {
-		    /** Update the simulation graph */
-		    Edge e = 
-			    this.area.getG().addEdge(me.getId()+"_"+base.getId(), 
-				    me, base);
-		    e.addAttribute("ui.class", "neighbor");	
-		    /** Update the uav graph */
-		    this.uavGraph.addEdge(
-			    meUavGraph.getId()+"_"+baseUavGraph.getId(), 
-			    meUavGraph, baseUavGraph);
-		}
-	    }
-	    else{
-		if (this.area.getG().getEdge(
-			me.getId()+"_"+base.getId()) != null){
-		    /** Update the simulation graph */
-		    this.area.getG().removeEdge(me, base);
-		    /** Update the uav graph */
-		    this.uavGraph.removeEdge(meUavGraph, baseUavGraph);
-		}
+	    boolean inSight = propa.areCloseEnoughToDecode(
+		    linkX[i], linkY[i], baseX, baseY);
+	    if (inSight != linkedToBase[i]){
+		if (inSight)
+		    this.uavGraph.addEdge(i, UAVGraph.BASE);
+		else
+		    this.uavGraph.removeEdge(i, UAVGraph.BASE);
+		linkedToBase[i] = inSight;
 	    }
 
-	    /** We check all the other UAV except us */
-	    for (int j = 0; j< getNbUAV(); j++){
-		if (myId != j){
-		    Node neighbor = this.area.getG().getNode(j+"_m");
-		    Node neighborUavGraph = 
-			    this.uavGraph.getUavGraph().getNode("uav"+j);
-		    /** If neighbor is close enough, create edge if needed */
-		    if (HomogeneousPropagationModel.areCloseEnoughToDecode(
-			    me, neighbor)){
-			if (!me.hasEdgeToward(neighbor)){
-			    /** Update the simulation graph */
-			    Edge e = this.area.getG().addEdge(
-				    me.getId()+"_"+neighbor.getId(),
-				    me, neighbor);
-			    e.addAttribute("ui.class", "neighbor");
-			    /** Update the uav graph */
-			    this.uavGraph.addEdge(
-				    meUavGraph.getId()+"_"+neighborUavGraph.getId(), 
-				    meUavGraph, neighborUavGraph);
-			}
-		    }
-		    /** If neighbor is NOT close enough, delete existing edges */
-		    else{
-			if (this.area.getG().getEdge(
-				me.getId()+"_"+neighbor.getId()) != null){
-			    /** Update the simulation graph */
-			    this.area.getG().removeEdge(me, neighbor);
-			    /** Update the uav graph */
-			    this.uavGraph.removeEdge(
-				    meUavGraph, neighborUavGraph);
-			}
-			if (this.area.getG().getEdge(
-				neighbor.getId()+"_"+me.getId()) != null){
-			    /** Update the simulation graph */
-			    this.area.getG().removeEdge(neighbor, me);
-			    /** Update the uav graph */
-			    this.uavGraph.removeEdge(
-				    neighborUavGraph, meUavGraph);
-			}
-		    }
+	    /** The current neighbours with a bigger identifier */
+	    int nbCandidates = linkIndex.getCandidates(i, candidates);
+	    int nbNewLinks = 0;
+	    for (int k = 0; k < nbCandidates; k++){
+		int j = candidates[k];
+		if ((j > i) && propa.areCloseEnoughToDecode(
+			linkX[i], linkY[i], linkX[j], linkY[j]))
+		    newLinks[nbNewLinks++] = j;
+	    }
+	    Arrays.sort(newLinks, 0, nbNewLinks);
+
+	    /** Merging with the previous neighbours to get the differences */
+	    int[] oldLinks = links[i];
+	    int o = 0, n = 0;
+	    boolean changed = false;
+	    while ((o < oldLinks.length) || (n < nbNewLinks)){
+		if ((n == nbNewLinks) || 
+			((o < oldLinks.length) && (oldLinks[o] < newLinks[n]))){
+		    removeLink(i, oldLinks[o++]);
+		    changed = true;
+		}
+		else if ((o == oldLinks.length) || (newLinks[n] < oldLinks[o])){
+		    addLink(i, newLinks[n++]);
+		    changed = true;
+		}
+		else {
+		    o++;
+		    n++;
 		}
 	    }
+	    if (changed)
+		links[i] = Arrays.copyOf(newLinks, nbNewLinks);
 	}
     }
 
+    /**
+     * Adds the link between two UAVs, the observer mirroring it if any
+     * @param i the smaller identifier
+     * @param j the bigger identifier
+     */
+    protected void addLink(int i, int j){
+	this.uavGraph.addEdge(i, j);
+    }
+
+    /**
+     * Removes the link between two UAVs, the observer mirroring it if any
+     * @param i the smaller identifier
+     * @param j the bigger identifier
+     */
+    protected void removeLink(int i, int j){
+	this.uavGraph.removeEdge(i, j);
+    }
+
 
 
     /*********************************************
@@ -548,6 +705,37 @@ public class Simulation {
     }
 
 
+    /**
+     * @return the observer, null if the simulation is not shown
+     */
+    public GraphStreamObserver getObserver() {
+	return observer;
+    }
+
+
+    /**
+     * @return the renderer, null if the simulation is not only displayed
+     */
+    public FrameRenderer getRenderer() {
+	return renderer;
+    }
+
+    /**
+     * @return the displayFps
+     */
+    public int getDisplayFps() {
+	return displayFps;
+    }
+
+    /**
+     * @param displayFps the maximum number of frames per second shown, 
+     * 0 for no limit
+     */
+    public void setDisplayFps(int displayFps) {
+	this.displayFps = displayFps;
+    }
+
+
     /**
      * @return the nbUAV
      */
@@ -708,6 +896,22 @@ public class Simulation {
     }
 
 
+    /**
+     * @return the pheromoneExchangeFreq
+     */
+    public int getPheromoneExchangeFreq() {
+	return pheromoneExchangeFreq;
+    }
+
+
+    /**
+     * @return the pheromoneExchangeRadius
+     */
+    public int getPheromoneExchangeRadius() {
+	return pheromoneExchangeRadius;
+    }
+
+
     /**
      * @return the tooOld
      */
@@ -732,6 +936,34 @@ public class Simulation {
     }
 
 
+    /**
+     * @return the context
+     */
+    public SimulationContext getContext() {
+	return context;
+    }
+
+    /**
+     * @param context the context to set
+     */
+    public void setContext(SimulationContext context) {
+	this.context = context;
+    }
+
+    /**
+     * @return the scheduler
+     */
+    public AbstractStepScheduler getScheduler() {
+	return scheduler;
+    }
+
+    /**
+     * @param scheduler the scheduler to set
+     */
+    public void setScheduler(AbstractStepScheduler scheduler) {
+	this.scheduler = scheduler;
+    }
+
     /**
      * @return the aco
      */
@@ -756,6 +988,119 @@ public class Simulation {
     }
 
 
+    /**
+     * @return the screenshotFreq
+     */
+    public int getScreenshotFreq() {
+	return screenshotFreq;
+    }
+
+    /**
+     * @param screenshotFreq the number of timesteps between two 
+     * screenshots
+     * @throws IllegalArgumentException if it is not positive
+     */
+    public void setScreenshotFreq(int screenshotFreq) {
+	if (screenshotFreq < 1)
+	    throw new IllegalArgumentException(
+		    "The screenshot frequency must be positive: "+screenshotFreq);
+	this.screenshotFreq = screenshotFreq;
+    }
+
+    /**
+     * @return the screenshotFormat
+     */
+    public AsyncFileSinkImages.Format getScreenshotFormat() {
+	return screenshotFormat;
+    }
+
+    /**
+     * @param screenshotFormat the screenshotFormat to set
+     */
+    public void setScreenshotFormat(AsyncFileSinkImages.Format screenshotFormat) {
+	this.screenshotFormat = screenshotFormat;
+    }
+
+    /**
+     * @return the screenshotThreads
+     */
+    public int getScreenshotThreads() {
+	return screenshotThreads;
+    }
+
+    /**
+     * @param screenshotThreads the number of threads encoding the 
+     * screenshots
+     */
+    public void setScreenshotThreads(int screenshotThreads) {
+	this.screenshotThreads = screenshotThreads;
+    }
+
+    /**
+     * @return true if the statistics are written in a csv file
+     */
+    public boolean isCsvStats() {
+	return csvStats;
+    }
+
+    /**
+     * @param csvStats false to write no csv file of the statistics
+     */
+    public void setCsvStats(boolean csvStats) {
+	this.csvStats = csvStats;
+    }
+
+    /**
+     * Adds an output of the statistics, to be done before the simulation
+     * @param sink the output
+     */
+    public void addStatsSink(AbstractMetricsSink sink) {
+	this.statsSinks.add(sink);
+    }
+
+    /**
+     * @return true if the statistics are also written in the binary format
+     */
+    public boolean isBinaryStats() {
+	return binaryStats;
+    }
+
+    /**
+     * @param binaryStats true to also write the statistics in the binary 
+     * format, next to the csv file
+     */
+    public void setBinaryStats(boolean binaryStats) {
+	this.binaryStats = binaryStats;
+    }
+
+    /**
+     * @return the parameters of the run, by name, as given to the outputs
+     * of the statistics
+     */
+    public Map<String, String> getParameters() {
+	Map<String, String> parameters = new LinkedHashMap<String, String>();
+	parameters.put("uavType", String.valueOf(uavType));
+	parameters.put("nbUAV", String.valueOf(nbUAV));
+	parameters.put("seed", String.valueOf(seed));
+	parameters.put("decisionFrequency", 
+		String.valueOf(localDecisionFrequency));
+	parameters.put("evaporationSpeed", String.valueOf(evaporationSpeed));
+	parameters.put("evaporationFreq", String.valueOf(evaporationFreq));
+	parameters.put("pheromoneExchangeFreq", 
+		String.valueOf(pheromoneExchangeFreq));
+	parameters.put("pheromoneExchangeRadius", 
+		String.valueOf(pheromoneExchangeRadius));
+	parameters.put("maxTimesteps", String.valueOf(maxTimesteps));
+	parameters.put("warmingSteps", String.valueOf(warmingSteps));
+	parameters.put("statsFreq", String.valueOf(statsFreq));
+	parameters.put("tooOld", String.valueOf(tooOld));
+	parameters.put("granularity", String.valueOf(granularity));
+	parameters.put("maxX", String.valueOf(maxX));
+	parameters.put("maxY", String.valueOf(maxY));
+	return parameters;
+    }
+
+
     /**
      * @param g the g to set
      */
@@ -924,6 +1269,29 @@ public class Simulation {
     }
 
 
+    /**
+     * @param pheromoneExchangeFreq the number of timesteps between two
+     * exchanges of pheromones of the distributed ACO
+     * @throws IllegalArgumentException if it is not positive
+     */
+    public void setPheromoneExchangeFreq(int pheromoneExchangeFreq) {
+	if (pheromoneExchangeFreq < 1)
+	    throw new IllegalArgumentException(
+		    "The pheromone exchange frequency must be positive: "+
+			    pheromoneExchangeFreq);
+	this.pheromoneExchangeFreq = pheromoneExchangeFreq;
+    }
+
+
+    /**
+     * @param pheromoneExchangeRadius the distance within which the
+     * pheromones of the distributed ACO are exchanged, in meters
+     */
+    public void setPheromoneExchangeRadius(int pheromoneExchangeRadius) {
+	this.pheromoneExchangeRadius = pheromoneExchangeRadius;
+    }
+
+
     /**
      * @param tooOld the tooOld to set
      */
@@ -983,6 +1351,37 @@ public class Simulation {
 	this.useLastUAVId = useLastUAVId;
     }
 
+    /**
+     * @return the evaporationParallelismThreshold
+     */
+    public int getEvaporationParallelismThreshold() {
+	return evaporationParallelismThreshold;
+    }
+
+    /**
+     * @param evaporationParallelismThreshold the number of cells with 
+     * pheromone from which they evaporate in parallel, 0 for never
+     */
+    public void setEvaporationParallelismThreshold(
+	    int evaporationParallelismThreshold) {
+	this.evaporationParallelismThreshold = evaporationParallelismThreshold;
+    }
+
+    /**
+     * @return the keepScanEvents
+     */
+    public boolean isKeepScanEvents() {
+	return keepScanEvents;
+    }
+
+    /**
+     * @param keepScanEvents true to keep every (cell, time) scan event
+     * in the scan log of the area
+     */
+    public void setKeepScanEvents(boolean keepScanEvents) {
+	this.keepScanEvents = keepScanEvents;
+    }
+
     /**
      * @return the seed
      */
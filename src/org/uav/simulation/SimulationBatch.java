@@ -1,58 +1,376 @@
 package org.uav.simulation;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.uav.metrics.MetricsAggregator;
 
 
 /**
  * @author Julien Schleich
- * When the Simulation class is done, this class should permit to easily 
- * execute batches of simulation instances and aggregate results. For now it 
- * is still a bit messy but it works
+ * This class executes batches of simulation instances and aggregates
+ * their results. A batch is described by a parameter grid (UAV types,
+ * number of UAVs, seeds, decision frequencies and evaporation settings),
+ * every combination of the grid being one run.
+ * Runs are independent {@link Simulation} instances executed concurrently
+ * on a bounded thread pool, with the display turned off. Each run writes
+ * its own CSV file in the output directory, and a summary merging all of
+ * them is written once the batch is over.
+ * The samples of the runs are also merged by a {@link MetricsAggregator}
+ * as each run completes, across the seeds of each configuration, into 
+ * an aggregate file giving the mean, its confidence interval and the 
+ * quantiles of each metric; the files of the runs can then be left out.
+ * The runs which fail are left out of the aggregate, which counts them.
  */
 public class SimulationBatch {
 
+    /** The parameter grid */
+    protected List<String> uavTypes;
+    protected List<Integer> nbUAVs;
+    protected List<Long> seeds;
+    protected List<Integer> decisionFrequencies;
+    protected List<Double> evaporationSpeeds;
+    protected List<Integer> evaporationFreqs;
 
-    public static void main(String[] args) throws InterruptedException, IOException {
+    /** Parameters shared by all the runs */
+    protected int maxTimesteps = 10000;
+    protected int warmingSteps = 0;
+
+    /** The maximum number of runs executed at the same time */
+    protected int nbThreads;
+
+    /** The directory in which the CSV files are written */
+    protected String outputDir;
+
+    /** The name of the merged summary file */
+    protected String summaryFile = "summary.csv";
+
+    /** False to write neither the file of each run nor the summary */
+    protected boolean perRunFiles = true;
+    /** The aggregation across the seeds, null for none */
+    protected MetricsAggregator aggregator = new MetricsAggregator();
+    /** The name of the aggregate file */
+    protected String aggregateFile = "aggregate.csv";
+
+    /**
+     * Constructor with a one value grid, use the setters to extend it
+     * @param outputDir the directory in which the CSV files are written
+     */
+    public SimulationBatch(String outputDir) {
+	this.outputDir = outputDir;
+	this.uavTypes = Arrays.asList("UAVBasicConnectedCoverage");
+	this.nbUAVs = Arrays.asList(15);
+	this.seeds = Arrays.asList(1L);
+	this.decisionFrequencies = Arrays.asList(30);
+	this.evaporationSpeeds = Arrays.asList(0.01);
+	this.evaporationFreqs = Arrays.asList(2);
+	this.nbThreads = Runtime.getRuntime().availableProcessors();
+    }
 
-	System.setProperty("org.graphstream.ui.renderer", 
-		"org.graphstream.ui.j2dviewer.J2DGraphRenderer");
+    /*********************************************
+     *
+     * Batch execution
+     *
+     ********************************************/
 
-	Simulation simu = new Simulation();
-	simu.setNbUAV(15);
-	simu.setSeed(1);
-	simu.setNbTimestepsInTheFuture(30);
+    /**
+     * Builds one configured simulation per combination of the grid
+     * @return the list of simulations to run
+     */
+    public List<Simulation> buildSimulations(){
+	List<Simulation> simulations = new ArrayList<Simulation>();
+	for (String uavType : uavTypes)
+	    for (Integer nbUAV : nbUAVs)
+		for (Integer decisionFrequency : decisionFrequencies)
+		    for (Double evaporationSpeed : evaporationSpeeds)
+			for (Integer evaporationFreq : evaporationFreqs)
+			    for (Long seed : seeds){
+				Simulation simu = new Simulation();
+				simu.uavType = uavType;
+				simu.setNbUAV(nbUAV);
+				simu.setSeed(seed);
+				simu.setLocalDecisionFrequency(decisionFrequency);
+				simu.setNbTimestepsInTheFuture(decisionFrequency);
+				simu.setEvaporationSpeed(evaporationSpeed);
+				simu.setEvaporationFreq(evaporationFreq);
+				simu.setMaxTimesteps(maxTimesteps);
+				simu.setWarmingSteps(warmingSteps);
+				/** No display in batch mode */
+				simu.setDisplay(false);
+				simu.setScreenshot(false);
+				simu.statsFile = outputDir + File.separator +
+					getRunName(simu);
+				simu.setCsvStats(perRunFiles);
+				if (aggregator != null)
+				    simu.addStatsSink(aggregator.newSink(
+					    getConfigurationName(simu)));
+				simulations.add(simu);
+			    }
+	return simulations;
+    }
 
-	simu.setLocalDecisionFrequency(30);
+    /**
+     * The name of a run, also used for its CSV file
+     * @param simu the configured simulation
+     * @return the name of the run
+     */
+    public String getRunName(Simulation simu){
+	return simu.uavType+"-"+simu.getNbUAV()+"-"+simu.getSeed()+"-"+
+		simu.getLocalDecisionFrequency()+"-"+
+		simu.getEvaporationSpeed()+"-"+simu.getEvaporationFreq();
+    }
 
-	simu.setMaxTimesteps(10000);
-	simu.setWarmingSteps(500);
-	simu.setWarmingSteps(0);
-	simu.setDisplay(true);
+    /**
+     * The name of the configuration of a run, its name without the seed,
+     * under which its samples are aggregated
+     * @param simu the configured simulation
+     * @return the name of the configuration
+     */
+    public String getConfigurationName(Simulation simu){
+	return simu.uavType+"-"+simu.getNbUAV()+"-"+
+		simu.getLocalDecisionFrequency()+"-"+
+		simu.getEvaporationSpeed()+"-"+simu.getEvaporationFreq();
+    }
 
-	//simu.uavType = "UAVBasicPheromoneMovement";
-	//simu.uavType = "UAVDistributedPheromoneMovement";
-	//simu.uavType = "UAVBasicPheromonewithrepulsion";
-	//simu.uavType = "UAVRandomMovement";
-	//simu.uavType = "UAVRandomDestination";
-	simu.uavType = "UAVBasicConnectedCoverage";
-	//simu.uavType="UAVRandomMovementwithrepulsion";
+    /**
+     * Executes every run of the grid and writes the merged summary and the
+     * aggregate file
+     * @return the simulations that ended without error
+     * @throws InterruptedException if interrupted while waiting for the runs
+     * @throws IOException if the summary cannot be written
+     */
+    public List<Simulation> run() throws InterruptedException, IOException {
+	new File(outputDir).mkdirs();
+	List<Simulation> simulations = buildSimulations();
+	ExecutorService pool = Executors.newFixedThreadPool(nbThreads);
+	List<Future<Simulation>> results = new ArrayList<Future<Simulation>>();
+	for (final Simulation simu : simulations){
+	    results.add(pool.submit(new Callable<Simulation>() {
+		public Simulation call() throws Exception {
+		    System.out.println("Processing: "+simu.statsFile);
+		    simu.runSimulation();
+		    return simu;
+		}
+	    }));
+	}
+	pool.shutdown();
+
+	List<Simulation> done = new ArrayList<Simulation>();
+	for (int i = 0; i < results.size(); i++){
+	    try {
+		done.add(results.get(i).get());
+	    } catch (ExecutionException e) {
+		System.out.println("Run "+simulations.get(i).statsFile+
+			" failed");
+		e.getCause().printStackTrace();
+		/** Its samples were discarded, it is counted in the aggregate */
+		if (aggregator != null)
+		    aggregator.runFailed(
+			    getConfigurationName(simulations.get(i)));
+	    }
+	}
+	if (perRunFiles)
+	    writeSummary(done);
+	if (aggregator != null)
+	    aggregator.write(outputDir + File.separator + aggregateFile);
+	return done;
+    }
 
-	simu.statsFile = simu.uavType+"-"+20+"-"+1;
-	System.out.println("Processing: "+simu.statsFile);
+    /**
+     * Merges the CSV files of the runs into a single file. Each line is
+     * prefixed by the parameters of its run.
+     * @param simulations the runs to merge
+     * @throws IOException if a file cannot be read or written
+     */
+    public void writeSummary(List<Simulation> simulations) throws IOException {
+	BufferedWriter out = new BufferedWriter(new FileWriter(
+		outputDir + File.separator + summaryFile));
+	boolean titleWritten = false;
 	try {
-	    simu.runSimulation();
-	} catch (InterruptedException e) {
-	    // TODO Auto-generated catch block
-	    e.printStackTrace();
-	} catch (IOException e) {
-	    // TODO Auto-generated catch block
-	    e.printStackTrace();
+	    for (Simulation simu : simulations){
+		BufferedReader in = new BufferedReader(
+			new FileReader(simu.statsFile+".csv"));
+		try {
+		    String line = in.readLine();
+		    if ((line != null) && (!titleWritten)){
+			out.write("uavType,nbUAV,seed,decisionFrequency,"+
+				"evaporationSpeed,evaporationFreq,"+line+'\n');
+			titleWritten = true;
+		    }
+		    String prefix = simu.uavType+","+simu.getNbUAV()+","+
+			    simu.getSeed()+","+simu.getLocalDecisionFrequency()+
+			    ","+simu.getEvaporationSpeed()+","+
+			    simu.getEvaporationFreq()+",";
+		    while ((line = in.readLine()) != null)
+			out.write(prefix+line+'\n');
+		}
+		finally {
+		    in.close();
+		}
+	    }
+	}
+	finally {
+	    out.close();
 	}
     }
 
+    /*********************************************
+     *
+     * Getters / Setters
+     *
+     ********************************************/
 
+    /**
+     * @param uavTypes the uavTypes to set
+     */
+    public void setUavTypes(List<String> uavTypes) {
+	this.uavTypes = uavTypes;
+    }
 
-}
+    /**
+     * @param nbUAVs the nbUAVs to set
+     */
+    public void setNbUAVs(List<Integer> nbUAVs) {
+	this.nbUAVs = nbUAVs;
+    }
+
+    /**
+     * @param seeds the seeds to set
+     */
+    public void setSeeds(List<Long> seeds) {
+	this.seeds = seeds;
+    }
+
+    /**
+     * @param decisionFrequencies the decisionFrequencies to set
+     */
+    public void setDecisionFrequencies(List<Integer> decisionFrequencies) {
+	this.decisionFrequencies = decisionFrequencies;
+    }
+
+    /**
+     * @param evaporationSpeeds the evaporationSpeeds to set
+     */
+    public void setEvaporationSpeeds(List<Double> evaporationSpeeds) {
+	this.evaporationSpeeds = evaporationSpeeds;
+    }
+
+    /**
+     * @param evaporationFreqs the evaporationFreqs to set
+     */
+    public void setEvaporationFreqs(List<Integer> evaporationFreqs) {
+	this.evaporationFreqs = evaporationFreqs;
+    }
+
+    /**
+     * @param maxTimesteps the maxTimesteps to set
+     */
+    public void setMaxTimesteps(int maxTimesteps) {
+	this.maxTimesteps = maxTimesteps;
+    }
+
+    /**
+     * @param warmingSteps the warmingSteps to set
+     */
+    public void setWarmingSteps(int warmingSteps) {
+	this.warmingSteps = warmingSteps;
+    }
+
+    /**
+     * @return the nbThreads
+     */
+    public int getNbThreads() {
+	return nbThreads;
+    }
+
+    /**
+     * @param nbThreads the nbThreads to set
+     */
+    public void setNbThreads(int nbThreads) {
+	this.nbThreads = nbThreads;
+    }
 
+    /**
+     * @return the outputDir
+     */
+    public String getOutputDir() {
+	return outputDir;
+    }
+
+    /**
+     * @param summaryFile the summaryFile to set
+     */
+    public void setSummaryFile(String summaryFile) {
+	this.summaryFile = summaryFile;
+    }
+
+    /**
+     * @return the perRunFiles
+     */
+    public boolean isPerRunFiles() {
+	return perRunFiles;
+    }
+
+    /**
+     * @param perRunFiles false to write neither the file of each run nor 
+     * the summary, only the aggregate file
+     */
+    public void setPerRunFiles(boolean perRunFiles) {
+	this.perRunFiles = perRunFiles;
+    }
 
+    /**
+     * @return the aggregator, null if the runs are not aggregated
+     */
+    public MetricsAggregator getAggregator() {
+	return aggregator;
+    }
+
+    /**
+     * @param aggregator the aggregator to set, null for none
+     */
+    public void setAggregator(MetricsAggregator aggregator) {
+	this.aggregator = aggregator;
+    }
+
+    /**
+     * @param aggregateFile the aggregateFile to set
+     */
+    public void setAggregateFile(String aggregateFile) {
+	this.aggregateFile = aggregateFile;
+    }
+
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+
+	SimulationBatch batch = new SimulationBatch("results");
+	batch.setUavTypes(Arrays.asList(
+		"UAVBasicConnectedCoverage",
+		"UAVBasicPheromoneMovement",
+		"UAVBasicPheromoneWithRepulsion",
+		"UAVRandomMovement",
+		"UAVRandomDestination"));
+	batch.setNbUAVs(Arrays.asList(15));
+	batch.setSeeds(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+	batch.setDecisionFrequencies(Arrays.asList(30));
+	batch.setEvaporationSpeeds(Arrays.asList(0.01));
+	batch.setEvaporationFreqs(Arrays.asList(2));
+	batch.setMaxTimesteps(10000);
+	batch.setWarmingSteps(0);
+
+	batch.run();
+    }
+
+}
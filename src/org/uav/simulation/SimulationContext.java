@@ -0,0 +1,123 @@
+package org.uav.simulation;
+
+import org.uav.autopilot.TrajectoryPredictionCache;
+import org.uav.wireless.AbstractPropagationModel;
+
+/**
+ * @author Julien Schleich
+ * The parameters and shared modules of one simulation instance.
+ * It is given to the UAVs and to the ACO modules instead of relying on
+ * static values, so that several simulations can run in the same JVM
+ * without interfering with each other.
+ */
+public class SimulationContext {
+
+    /** A frequency to take local decisions every x time steps */
+    protected int decisionFrequency = 5;
+
+    /** The maximum distance for which a wireless communication can occur */
+    protected double maxDistance = 400;
+
+    /** The maximum pheromone count */
+    protected double maxPheromoneValue = 1;
+
+    /** The minimum pheromone count */
+    protected double minPheromoneValue = Double.MIN_VALUE;
+
+    /** The wireless propagation model of the simulation */
+    protected AbstractPropagationModel propa;
+
+    /** The trajectory predictions shared by the UAVs, null if not used */
+    protected TrajectoryPredictionCache predictionCache;
+
+    /*********************************************
+     *
+     * Getters / Setters
+     *
+     ********************************************/
+
+    /**
+     * @return the decisionFrequency
+     */
+    public int getDecisionFrequency() {
+	return decisionFrequency;
+    }
+
+    /**
+     * @param decisionFrequency the decisionFrequency to set
+     */
+    public void setDecisionFrequency(int decisionFrequency) {
+	this.decisionFrequency = decisionFrequency;
+    }
+
+    /**
+     * @return the maxDistance
+     */
+    public double getMaxDistance() {
+	return maxDistance;
+    }
+
+    /**
+     * @param maxDistance the maxDistance to set
+     */
+    public void setMaxDistance(double maxDistance) {
+	this.maxDistance = maxDistance;
+    }
+
+    /**
+     * @return the maxPheromoneValue
+     */
+    public double getMaxPheromoneValue() {
+	return maxPheromoneValue;
+    }
+
+    /**
+     * @param maxPheromoneValue the maxPheromoneValue to set
+     */
+    public void setMaxPheromoneValue(double maxPheromoneValue) {
+	this.maxPheromoneValue = maxPheromoneValue;
+    }
+
+    /**
+     * @return the minPheromoneValue
+     */
+    public double getMinPheromoneValue() {
+	return minPheromoneValue;
+    }
+
+    /**
+     * @param minPheromoneValue the minPheromoneValue to set
+     */
+    public void setMinPheromoneValue(double minPheromoneValue) {
+	this.minPheromoneValue = minPheromoneValue;
+    }
+
+    /**
+     * @return the propa
+     */
+    public AbstractPropagationModel getPropa() {
+	return propa;
+    }
+
+    /**
+     * @param propa the propa to set
+     */
+    public void setPropa(AbstractPropagationModel propa) {
+	this.propa = propa;
+    }
+
+    /**
+     * @return the predictionCache
+     */
+    public TrajectoryPredictionCache getPredictionCache() {
+	return predictionCache;
+    }
+
+    /**
+     * @param predictionCache the predictionCache to set
+     */
+    public void setPredictionCache(TrajectoryPredictionCache predictionCache) {
+	this.predictionCache = predictionCache;
+    }
+
+}
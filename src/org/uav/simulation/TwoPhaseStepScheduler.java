@@ -0,0 +1,158 @@
+package org.uav.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.uav.AbstractUAV;
+
+/**
+ * @author Julien Schleich
+ * A scheduler processing a timestep in two phases:
+ * 	1. Every UAV takes its decisions from the state of the beginning of 
+ * the timestep, nobody moves and destination updates are kept aside.
+ * The decisions are taken concurrently on a thread pool.
+ * 	2. The decided destinations are applied and the UAVs move, one after 
+ * the other.
+ * Since no decision sees the result of another one, the outcome does not
+ * depend on the order of the UAVs nor on the number of threads. The 
+ * deterministic mode takes the decisions on the calling thread in the 
+ * order of the UAVs, which gives the same results without a thread pool.
+ * If one UAV does not take isolated decisions (see 
+ * {@link AbstractUAV#isDecisionIsolated()}), the deterministic mode is used.
+ */
+public class TwoPhaseStepScheduler extends AbstractStepScheduler {
+
+    /** The number of threads taking the decisions */
+    protected int nbThreads;
+
+    /** True to take the decisions on the calling thread */
+    protected boolean deterministic;
+
+    /** The thread pool, created at the first parallel step */
+    protected ExecutorService pool;
+
+    /**
+     * Constructor of a parallel scheduler using every processor
+     */
+    public TwoPhaseStepScheduler() {
+	this(Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    /**
+     * Constructor
+     * @param nbThreads the number of threads taking the decisions
+     * @param deterministic true to take the decisions on the calling thread
+     */
+    public TwoPhaseStepScheduler(int nbThreads, boolean deterministic) {
+	this.nbThreads = nbThreads;
+	this.deterministic = deterministic;
+    }
+
+    @Override
+    public void doStep(AbstractUAV[] u, int nbUAV) throws InterruptedException {
+	/** Phase 1: decisions */
+	if (deterministic || (nbThreads <= 1) || !areDecisionsIsolated(u, nbUAV)){
+	    for (int i=0; i<nbUAV; i++)
+		u[i].doDecisionStep();
+	}
+	else
+	    doParallelDecisions(u, nbUAV);
+
+	/** Phase 2: destinations and moves */
+	for (int i=0; i<nbUAV; i++)
+	    u[i].doMoveStep();
+    }
+
+    /**
+     * @param u the UAVs
+     * @param nbUAV the number of UAVs
+     * @return true if every UAV takes isolated decisions
+     */
+    protected boolean areDecisionsIsolated(AbstractUAV[] u, int nbUAV){
+	for (int i=0; i<nbUAV; i++)
+	    if (!u[i].isDecisionIsolated())
+		return false;
+	return true;
+    }
+
+    /**
+     * Takes the decisions of the UAVs on the thread pool. UAVs are 
+     * interleaved among the tasks to balance the costly decisions.
+     * @param u the UAVs
+     * @param nbUAV the number of UAVs
+     * @throws InterruptedException if interrupted while waiting for the tasks
+     */
+    protected void doParallelDecisions(final AbstractUAV[] u, final int nbUAV) 
+	    throws InterruptedException {
+	if (pool == null)
+	    pool = Executors.newFixedThreadPool(nbThreads, new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+		    Thread t = new Thread(r, "uav-decisions");
+		    t.setDaemon(true);
+		    return t;
+		}
+	    });
+
+	final int nbTasks = Math.min(nbThreads, nbUAV);
+	List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(nbTasks);
+	for (int t=0; t<nbTasks; t++){
+	    final int first = t;
+	    tasks.add(new Callable<Void>() {
+		public Void call() {
+		    for (int i=first; i<nbUAV; i+=nbTasks)
+			u[i].doDecisionStep();
+		    return null;
+		}
+	    });
+	}
+	for (Future<Void> f : pool.invokeAll(tasks)){
+	    try {
+		f.get();
+	    } catch (ExecutionException e) {
+		throw new RuntimeException(e.getCause());
+	    }
+	}
+    }
+
+    @Override
+    public void shutdown(){
+	if (pool != null){
+	    pool.shutdown();
+	    pool = null;
+	}
+    }
+
+    /*********************************************
+     * 
+     * Getters / Setters
+     * 
+     ********************************************/
+
+    /**
+     * @return the nbThreads
+     */
+    public int getNbThreads() {
+	return nbThreads;
+    }
+
+    /**
+     * @return the deterministic
+     */
+    public boolean isDeterministic() {
+	return deterministic;
+    }
+
+    /**
+     * @param deterministic the deterministic to set
+     */
+    public void setDeterministic(boolean deterministic) {
+	this.deterministic = deterministic;
+    }
+
+}
@@ -64,37 +64,52 @@ public class Heading {
      * in a straight line
      */
     public void setCurrentHeading(double targetHeading) {
+	this.currentHeading = getNextHeading(this.currentHeading, 
+		targetHeading, maxHeadingChange);
+    }
+
+    /**
+     * Computes the next heading value depending on the destination,
+     * without any instance so that it can be used on primitive values
+     * @param currentHeading the current heading value
+     * @param targetHeading the heading to go to the destination
+     * in a straight line
+     * @param maxHeadingChange the maximum heading change per timestep
+     * @return the next heading value
+     */
+    public static double getNextHeading(double currentHeading, 
+	    double targetHeading, double maxHeadingChange) {
 
-	if (targetHeading - this.currentHeading > 0)
-	    if (Math.abs(targetHeading - this.currentHeading) > Math.PI)
-		if (Math.abs(targetHeading - this.currentHeading) > 
+	if (targetHeading - currentHeading > 0)
+	    if (Math.abs(targetHeading - currentHeading) > Math.PI)
+		if (Math.abs(targetHeading - currentHeading) > 
 		maxHeadingChange)
-		    this.currentHeading -= maxHeadingChange;
+		    currentHeading -= maxHeadingChange;
 		else
-		    this.currentHeading = targetHeading;
+		    currentHeading = targetHeading;
 	    else
-		if (Math.abs(targetHeading - this.currentHeading) >
+		if (Math.abs(targetHeading - currentHeading) >
 		maxHeadingChange)
-		    this.currentHeading += maxHeadingChange;
+		    currentHeading += maxHeadingChange;
 		else
-		    this.currentHeading = targetHeading;
+		    currentHeading = targetHeading;
 	else
-	    if (Math.abs(targetHeading - this.currentHeading) > Math.PI)
-		if (Math.abs(targetHeading - this.currentHeading) >
-maxHeadingChange)
-		    this.currentHeading += maxHeadingChange;
+	    if (Math.abs(targetHeading - currentHeading) > Math.PI)
+		if (Math.abs(targetHeading - currentHeading) >
+		maxHeadingChange)
+		    currentHeading += maxHeadingChange;
 		else
-		    this.currentHeading = targetHeading;
+		    currentHeading = targetHeading;
 	    else
-		if (Math.abs(targetHeading - this.currentHeading) > 
+		if (Math.abs(targetHeading - currentHeading) > 
 		maxHeadingChange)
-		    this.currentHeading -= maxHeadingChange;
+		    currentHeading -= maxHeadingChange;
 		else
-		    this.currentHeading = targetHeading;
+		    currentHeading = targetHeading;
 
-	if (this.currentHeading < 0)
-	    this.currentHeading = 2*Math.PI + this.currentHeading;
-	this.currentHeading = currentHeading % maxHeading;
+	if (currentHeading < 0)
+	    currentHeading = 2*Math.PI + currentHeading;
+	return currentHeading % maxHeading;
     }
 
     /**
@@ -90,23 +90,40 @@ public class Speed {
      * @param targetSpeed the target speed value
      */
     public void setCurrentSpeed(double targetSpeed) {
+	this.currentSpeed = getNextSpeed(this.currentSpeed, targetSpeed, 
+		minSpeed, maxSpeed, maxAccel, maxDecel);
+    }
+
+    /**
+     * Computes the next speed value depending on a target speed,
+     * without any instance so that it can be used on primitive values
+     * @param currentSpeed the current speed value
+     * @param targetSpeed the target speed value
+     * @param minSpeed the min speed value
+     * @param maxSpeed the max speed value
+     * @param maxAccel the maximum acceleration per timestep
+     * @param maxDecel the maximum deceleration per timestep
+     * @return the next speed value
+     */
+    public static double getNextSpeed(double currentSpeed, double targetSpeed,
+	    double minSpeed, double maxSpeed, double maxAccel, double maxDecel) {
 	// Changing current speed and checking if the change does not violate the UAV possibilities
-	if ( (targetSpeed > this.currentSpeed)
-		&& (this.currentSpeed < maxSpeed) ){
-	    if ((targetSpeed - this.currentSpeed) > maxAccel)
-		this.currentSpeed += maxAccel;
+	if ( (targetSpeed > currentSpeed)
+		&& (currentSpeed < maxSpeed) ){
+	    if ((targetSpeed - currentSpeed) > maxAccel)
+		currentSpeed += maxAccel;
 	    else
-		this.currentSpeed = targetSpeed;
+		currentSpeed = targetSpeed;
 
 	}
-	if ( (targetSpeed < this.currentSpeed)
-		&& (this.currentSpeed > minSpeed) ){
-	    if ((this.currentSpeed - targetSpeed) > maxDecel)
-		this.currentSpeed -= maxDecel;
+	if ( (targetSpeed < currentSpeed)
+		&& (currentSpeed > minSpeed) ){
+	    if ((currentSpeed - targetSpeed) > maxDecel)
+		currentSpeed -= maxDecel;
 	    else
-		this.currentSpeed = targetSpeed;
+		currentSpeed = targetSpeed;
 	}
-
+	return currentSpeed;
     }
 
     /**
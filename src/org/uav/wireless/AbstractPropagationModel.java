@@ -3,7 +3,6 @@
  */
 package org.uav.wireless;
 
-import org.graphstream.graph.Node;
 import org.uav.status.Position;
 
 /**
@@ -15,21 +14,31 @@ import org.uav.status.Position;
 public abstract class AbstractPropagationModel {
 
     /**
-     * Calculating the Euclidian distances between two UAVs
-     * @param n1 the first node representing the first UAV
-     * @param n2 the second node representing the second UAV
-     * @return the distance
+     * The main method to detect if a wireless communication can occur between 
+     * two UAVs
+     * @param p1 the position of the first UAV
+     * @param p2 the position of the second UAV
+     * @return true if the p1 and p2 are close enough, false otherwise
      */
-    public static double getDistance(Node n1, Node n2){
-	double deltaX = AbstractPropagationModel.getDeltaX(n1, n2);
-	double deltaY = AbstractPropagationModel.getDeltaY(n1, n2);
+    public abstract boolean areCloseEnoughToDecode(Position p1, Position p2);
 
-	if ( (deltaX == Double.MAX_VALUE) || (deltaY == Double.MAX_VALUE)){
-	    return Double.MAX_VALUE;
-	}
-	else
-	    return Math.sqrt(Math.pow(deltaX, 2) + Math.pow(deltaY, 2));
-    }
+    /**
+     * The main method to detect if a wireless communication can occur between 
+     * two UAVs, on raw coordinates
+     * @param x1 the x-axis coordinate of the first UAV
+     * @param y1 the y-axis coordinate of the first UAV
+     * @param x2 the x-axis coordinate of the second UAV
+     * @param y2 the y-axis coordinate of the second UAV
+     * @return true if both UAVs are close enough, false otherwise
+     */
+    public abstract boolean areCloseEnoughToDecode(double x1, double y1, 
+	    double x2, double y2);
+
+    /**
+     * The distance beyond which no communication can occur
+     * @return the maximum communication distance
+     */
+    public abstract double getMaxDistance();
 
     /**
      * Calculating the Euclidian distances between two UAVs
@@ -48,32 +57,6 @@ public abstract class AbstractPropagationModel {
 	    return Math.sqrt(Math.pow(deltaX, 2) + Math.pow(deltaY, 2));
     }
 
-    /**
-     * Calculating the x-axis distance between two UAVs
-     * @param n1 the first node representing the first UAV
-     * @param n2 the second node representing the second UAV
-     * @return the distance
-     */
-    public static double getDeltaX(Node n1, Node n2){
-	if ( (n1.hasAttribute("x")) && (n2.hasAttribute("x")) )
-	    return (Double)n1.getAttribute("x") - (Double)n2.getAttribute("x");
-	else
-	    return Double.MAX_VALUE;
-    }
-
-    /**
-     * Calculating the y-axis distance between two UAVs
-     * @param n1 the first node representing the first UAV
-     * @param n2 the second node representing the second UAV
-     * @return the distance
-     */
-    public static double getDeltaY(Node n1, Node n2){
-	if ( (n1.hasAttribute("y")) && (n2.hasAttribute("y")) )
-	    return (Double)n1.getAttribute("y") - (Double)n2.getAttribute("y");
-	else
-	    return Double.MAX_VALUE;	
-    }
-
     /**
      * Calculating the x-axis distance between two UAVs
      * @param n1 the first position
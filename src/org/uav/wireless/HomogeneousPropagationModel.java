@@ -3,7 +3,6 @@
  */
 package org.uav.wireless;
 
-import org.graphstream.graph.Node;
 import org.uav.status.Position;
 
 /**
@@ -16,7 +15,22 @@ public class HomogeneousPropagationModel extends AbstractPropagationModel {
     /**
      * The maximum distance for which a wireless communication can occur
      */
-    public static double maxDistance = 400;
+    protected double maxDistance;
+
+    /**
+     * Constructor with the default transmission range
+     */
+    public HomogeneousPropagationModel() {
+	this(400);
+    }
+
+    /**
+     * Constructor
+     * @param maxDistance the maximum transmission range
+     */
+    public HomogeneousPropagationModel(double maxDistance) {
+	this.maxDistance = maxDistance;
+    }
 
     /**
      * The main method to detect if a wireless communication can occur between 
@@ -25,17 +39,18 @@ public class HomogeneousPropagationModel extends AbstractPropagationModel {
      * @param n2 the second node representing the second UAV
      * @return true if the n1 and n2 are close enough, false otherwise
      */
-    public static boolean areCloseEnoughToDecode(Node n1, Node n2){
-	double deltaX = getDeltaX(n1,n2);
-	double deltaY = getDeltaY(n1,n2);
+    @Override
+    public boolean areCloseEnoughToDecode(Position p1, Position p2){
+	double deltaX = getDeltaX(p1,p2);
+	double deltaY = getDeltaY(p1,p2);
 
 	/// First raw check for distance
-	if ( (deltaX > HomogeneousPropagationModel.maxDistance) ||
-		(deltaY > HomogeneousPropagationModel.maxDistance) )
+	if ( (deltaX > this.maxDistance) ||
+		(deltaY > this.maxDistance) )
 	    return false;
 
 	/// More precise check if useful
-	if (getDistance(n1,n2)>HomogeneousPropagationModel.maxDistance)
+	if (getDistance(p1,p2)>this.maxDistance)
 	    return false;
 	else
 	    return true;
@@ -43,25 +58,45 @@ public class HomogeneousPropagationModel extends AbstractPropagationModel {
 
     /**
      * The main method to detect if a wireless communication can occur between 
-     * two UAVs
-     * @param n1 the first node representing the first UAV
-     * @param n2 the second node representing the second UAV
-     * @return true if the n1 and n2 are close enough, false otherwise
+     * two UAVs, on raw coordinates
+     * @param x1 the x-axis coordinate of the first UAV
+     * @param y1 the y-axis coordinate of the first UAV
+     * @param x2 the x-axis coordinate of the second UAV
+     * @param y2 the y-axis coordinate of the second UAV
+     * @return true if both UAVs are close enough, false otherwise
      */
-    public static boolean areCloseEnoughToDecode(Position p1, Position p2){
-	double deltaX = getDeltaX(p1,p2);
-	double deltaY = getDeltaY(p1,p2);
+    @Override
+    public boolean areCloseEnoughToDecode(double x1, double y1, 
+	    double x2, double y2){
+	double deltaX = x1 - x2;
+	double deltaY = y1 - y2;
 
 	/// First raw check for distance
-	if ( (deltaX > HomogeneousPropagationModel.maxDistance) ||
-		(deltaY > HomogeneousPropagationModel.maxDistance) )
+	if ( (deltaX > this.maxDistance) ||
+		(deltaY > this.maxDistance) )
 	    return false;
 
 	/// More precise check if useful
-	if (getDistance(p1,p2)>HomogeneousPropagationModel.maxDistance)
+	if (Math.sqrt(Math.pow(deltaX, 2) + Math.pow(deltaY, 2)) > 
+	this.maxDistance)
 	    return false;
 	else
 	    return true;
     }
 
+    /**
+     * @return the maxDistance
+     */
+    @Override
+    public double getMaxDistance() {
+	return maxDistance;
+    }
+
+    /**
+     * @param maxDistance the maxDistance to set
+     */
+    public void setMaxDistance(double maxDistance) {
+	this.maxDistance = maxDistance;
+    }
+
 }
@@ -0,0 +1,128 @@
+/**
+ *
+ */
+package org.uav.wireless;
+
+import java.util.Arrays;
+
+/**
+ * @author Julien Schleich
+ * A uniform grid spatial index used to find the pairs of UAVs that may be
+ * able to communicate. The size of a bucket is the maximum communication
+ * distance, so two UAVs close enough to decode each other are always in
+ * the same or in adjacent buckets.
+ * Positions outside of the indexed rectangle are clamped to the border
+ * buckets, which keeps this property true.
+ */
+public class UniformGridIndex {
+
+    /** The minimum value for x axis */
+    protected double minX;
+    /** The minimum value for y axis */
+    protected double minY;
+    /** The size of a bucket */
+    protected double cellSize;
+    /** The number of buckets on the x axis */
+    protected int nbCols;
+    /** The number of buckets on the y axis */
+    protected int nbRows;
+
+    /** For each bucket, the index of its first item in items */
+    protected int[] cellStart;
+    /** The items, sorted by bucket */
+    protected int[] items;
+    /** The bucket of each item */
+    protected int[] cellOfItem;
+
+    /**
+     * Constructor
+     * @param minX the minimum value of x axis
+     * @param minY the minimum value of y axis
+     * @param maxX the maximum value of x axis
+     * @param maxY the maximum value of y axis
+     * @param cellSize the size of a bucket
+     * @param capacity the number of indexed items
+     */
+    public UniformGridIndex(double minX, double minY, double maxX,
+	    double maxY, double cellSize, int capacity) {
+	this.minX = minX;
+	this.minY = minY;
+	this.cellSize = cellSize;
+	this.nbCols = Math.max(1, (int)Math.ceil((maxX - minX) / cellSize));
+	this.nbRows = Math.max(1, (int)Math.ceil((maxY - minY) / cellSize));
+	this.cellStart = new int[nbCols * nbRows + 1];
+	this.items = new int[capacity];
+	this.cellOfItem = new int[capacity];
+    }
+
+    /**
+     * @param x the x axis coordinate
+     * @return the bucket column of the coordinate
+     */
+    protected int getCol(double x){
+	int col = (int)Math.floor((x - minX) / cellSize);
+	if (col < 0)
+	    return 0;
+	if (col >= nbCols)
+	    return nbCols - 1;
+	return col;
+    }
+
+    /**
+     * @param y the y axis coordinate
+     * @return the bucket row of the coordinate
+     */
+    protected int getRow(double y){
+	int row = (int)Math.floor((y - minY) / cellSize);
+	if (row < 0)
+	    return 0;
+	if (row >= nbRows)
+	    return nbRows - 1;
+	return row;
+    }
+
+    /**
+     * Rebuilds the index with a counting sort of the items by bucket
+     * @param x the x axis coordinates of the items
+     * @param y the y axis coordinates of the items
+     * @param nbItems the number of items to index
+     */
+    public void build(double[] x, double[] y, int nbItems){
+	Arrays.fill(cellStart, 0);
+	for (int i = 0; i < nbItems; i++){
+	    int cell = getCol(x[i]) * nbRows + getRow(y[i]);
+	    cellOfItem[i] = cell;
+	    cellStart[cell + 1]++;
+	}
+	for (int c = 0; c < nbCols * nbRows; c++)
+	    cellStart[c + 1] += cellStart[c];
+	/** cellStart[c] is used as an insertion cursor, then shifted back */
+	for (int i = 0; i < nbItems; i++)
+	    items[cellStart[cellOfItem[i]]++] = i;
+	for (int c = nbCols * nbRows; c > 0; c--)
+	    cellStart[c] = cellStart[c - 1];
+	cellStart[0] = 0;
+    }
+
+    /**
+     * Returns the items of the bucket of an item and of the eight buckets
+     * around it. The item itself is part of the result.
+     * @param item the considered item
+     * @param res the array to fill, at least as big as the number of items
+     * @return the number of candidates written in res
+     */
+    public int getCandidates(int item, int[] res){
+	int col = cellOfItem[item] / nbRows;
+	int row = cellOfItem[item] % nbRows;
+	int nb = 0;
+	for (int c = Math.max(0, col - 1); c <= Math.min(nbCols - 1, col + 1); c++){
+	    for (int r = Math.max(0, row - 1); r <= Math.min(nbRows - 1, row + 1); r++){
+		int cell = c * nbRows + r;
+		for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++)
+		    res[nb++] = items[k];
+	    }
+	}
+	return nb;
+    }
+
+}